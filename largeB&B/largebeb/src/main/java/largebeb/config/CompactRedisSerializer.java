@@ -0,0 +1,221 @@
+package largebeb.config;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileParser;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import largebeb.dto.PropertyResponseDTO;
+import largebeb.dto.UserIdentityDTO;
+import largebeb.model.Reservation;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary serializer for Redis values (RedisTemplate and @Cacheable entries).
+ *
+ * Values are written in a versioned envelope:
+ *   magic (0xBE) | version | flags (bit 0 = deflated, bit 1 = LZ4) | type id (2 bytes) | payload
+ * The payload is Smile (binary JSON) without class-name metadata: the class is given
+ * by the type id registered below. Classes outside the registry use type id 0 and a
+ * Smile payload with default typing: collections and maps stay there, since their
+ * elements need the class names to come back with the right types.
+ * The envelope already identifies the format, so the 4-byte Smile header is not written
+ * (a short String would otherwise pay it on top of its own length).
+ * Payloads above the threshold are LZ4-compressed, prefixed with their original length:
+ * these values are read on every cache hit, where LZ4 decompresses several times faster
+ * than Deflate. Deflated payloads written before LZ4 are still read.
+ *
+ * Bytes without the magic byte are values written by the former JSON serializer:
+ * they are read with it, so existing keys stay readable until they expire.
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte MAGIC = (byte) 0xBE;
+    private static final byte VERSION = 1;
+    private static final byte FLAG_DEFLATED = 1;
+    private static final byte FLAG_LZ4 = 2;
+    private static final int HEADER_SIZE = 5;
+    private static final short TYPE_DYNAMIC = 0;
+
+    // Thread-safe, shared by every serializer
+    private static final LZ4Compressor LZ4_COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4SafeDecompressor LZ4_DECOMPRESSOR = LZ4Factory.fastestInstance().safeDecompressor();
+
+    // Stable type ids: never renumber or reuse an id, only append new ones
+    private static final Map<Class<?>, Short> TYPE_IDS = new HashMap<>();
+    private static final Map<Short, Class<?>> TYPES_BY_ID = new HashMap<>();
+
+    static {
+        register(1, String.class);
+        register(2, Long.class);
+        register(3, Integer.class);
+        register(4, Double.class);
+        register(5, Boolean.class);
+        register(6, PropertyResponseDTO.class);
+        register(7, Reservation.class);
+        register(8, UserIdentityDTO.class);
+    }
+
+    private final ObjectMapper plainMapper;
+    private final ObjectMapper typedMapper;
+    private final RedisSerializer<Object> legacySerializer;
+    private final int compressionThreshold;
+
+    /**
+     * @param legacySerializer reader of values written before the envelope existed
+     * @param compressionThreshold payloads larger than this (bytes) are compressed
+     */
+    public CompactRedisSerializer(RedisSerializer<Object> legacySerializer, int compressionThreshold) {
+        this.legacySerializer = legacySerializer;
+        this.compressionThreshold = compressionThreshold;
+        this.plainMapper = smileMapper();
+        this.typedMapper = smileMapper();
+        this.typedMapper.activateDefaultTyping(typedMapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) return new byte[0];
+        try {
+            Short typeId = TYPE_IDS.get(value.getClass());
+            byte[] payload = typeId != null
+                    ? plainMapper.writeValueAsBytes(value)
+                    : typedMapper.writeValueAsBytes(value);
+
+            byte flags = 0;
+            if (payload.length > compressionThreshold) {
+                payload = compress(payload);
+                flags |= FLAG_LZ4;
+            }
+
+            return ByteBuffer.allocate(HEADER_SIZE + payload.length)
+                    .put(MAGIC)
+                    .put(VERSION)
+                    .put(flags)
+                    .putShort(typeId != null ? typeId : TYPE_DYNAMIC)
+                    .put(payload)
+                    .array();
+        } catch (Exception e) {
+            throw new SerializationException("Could not serialize " + value.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) return null;
+        if (bytes[0] != MAGIC) {
+            return legacySerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_SIZE || bytes[1] != VERSION) {
+            throw new SerializationException("Unsupported Redis value envelope (version " + (bytes.length > 1 ? bytes[1] : -1) + ")");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(2);
+        byte flags = buffer.get();
+        short typeId = buffer.getShort();
+        byte[] payload = new byte[buffer.remaining()];
+        buffer.get(payload);
+
+        try {
+            if ((flags & FLAG_LZ4) != 0) {
+                payload = decompress(payload);
+            } else if ((flags & FLAG_DEFLATED) != 0) {
+                payload = inflate(payload);
+            }
+            if (typeId == TYPE_DYNAMIC) {
+                return typedMapper.readValue(payload, Object.class);
+            }
+            Class<?> type = TYPES_BY_ID.get(typeId);
+            if (type == null) {
+                throw new SerializationException("Unknown type id in Redis value: " + typeId);
+            }
+            return plainMapper.readValue(payload, type);
+        } catch (SerializationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SerializationException("Could not deserialize Redis value (type id " + typeId + ")", e);
+        }
+    }
+
+    // HELPER METHODS
+
+    private static void register(int id, Class<?> type) {
+        TYPE_IDS.put(type, (short) id);
+        TYPES_BY_ID.put((short) id, type);
+    }
+
+    // Same visibility and date handling as the JSON mappers; unknown fields are ignored so old entries survive new fields.
+    // No Smile header is written, and values written with one (before it was dropped) are still read.
+    private static ObjectMapper smileMapper() {
+        SmileFactory factory = SmileFactory.builder()
+                .disable(SmileGenerator.Feature.WRITE_HEADER)
+                .disable(SmileParser.Feature.REQUIRE_HEADER)
+                .build();
+        ObjectMapper mapper = new SmileMapper(factory);
+        mapper.registerModule(new JavaTimeModule());
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return mapper;
+    }
+
+    // Original length (4 bytes) followed by the LZ4 block
+    private static byte[] compress(byte[] data) {
+        byte[] out = new byte[4 + LZ4_COMPRESSOR.maxCompressedLength(data.length)];
+        ByteBuffer.wrap(out).putInt(data.length);
+        int length = LZ4_COMPRESSOR.compress(data, 0, data.length, out, 4, out.length - 4);
+        return Arrays.copyOf(out, 4 + length);
+    }
+
+    private static byte[] decompress(byte[] data) {
+        if (data.length < 4) {
+            throw new SerializationException("Truncated compressed payload");
+        }
+        int originalLength = ByteBuffer.wrap(data).getInt();
+        if (originalLength < 0) {
+            throw new SerializationException("Corrupt compressed payload length: " + originalLength);
+        }
+        byte[] out = new byte[originalLength];
+        int n = LZ4_DECOMPRESSOR.decompress(data, 4, data.length - 4, out, 0);
+        if (n != originalLength) {
+            throw new SerializationException("Truncated compressed payload");
+        }
+        return out;
+    }
+
+    // Payloads deflated before LZ4 was used
+    private static byte[] inflate(byte[] data) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3);
+            byte[] chunk = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated compressed payload");
+                }
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
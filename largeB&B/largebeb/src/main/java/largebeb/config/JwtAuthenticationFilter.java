@@ -4,8 +4,9 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import largebeb.repository.UserRepository;
-import largebeb.model.RegisteredUser;
+import largebeb.dto.UserIdentityDTO;
+import largebeb.services.UserIdentityService;
+import largebeb.utilities.JwtPrincipal;
 import largebeb.utilities.JwtUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,11 +26,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final JwtUtil jwtUtil;
-    private final UserRepository userRepository;
+    private final UserIdentityService userIdentityService;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserRepository userRepository) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserIdentityService userIdentityService) {
         this.jwtUtil = jwtUtil;
-        this.userRepository = userRepository;
+        this.userIdentityService = userIdentityService;
     }
 
     @Override
@@ -47,12 +48,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             try {
-                if (jwtUtil.validateToken(token)) {
-                    String userId = jwtUtil.getUserIdFromToken(token);
+                // Verified once here: services reading this token get the claims from the principal
+                JwtPrincipal principal = jwtUtil.authenticate(token);
+                if (principal != null) {
+                    String userId = principal.userId();
                     logger.info(">>> TOKEN VALIDO. UserID estratto: {}", userId);
                     
-                    // Look up fresh user from Database
-                    RegisteredUser user = userRepository.findById(userId).orElse(null);
+                    // Look up the user's role (short-lived cache, evicted when the account changes)
+                    UserIdentityDTO user = userIdentityService.getIdentity(userId);
 
                     if (user != null) {
                         String role = user.getRole(); 
@@ -61,10 +64,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         // Assign ROLE_... authority
                         SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role);
 
+                        // Principal = claims of the token, credentials = the token it was read from
                         UsernamePasswordAuthenticationToken authToken = 
                             new UsernamePasswordAuthenticationToken(
-                                user.getEmail(), 
-                                null, 
+                                principal, 
+                                token, 
                                 Collections.singletonList(authority)
                             );
                         
@@ -0,0 +1,41 @@
+package largebeb.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+@Configuration
+public class PropertyVersionMigration extends StartupMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(PropertyVersionMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    public PropertyVersionMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /*
+      Properties imported before Property.version existed would be treated as new
+      documents by save() (null version = insert). A single updateMulti sets them
+      to version 0, after the first run it matches nothing.
+      Runs before the web server starts: until then modifyProperty on a legacy document
+      would insert a duplicate and fail with DuplicateKeyException instead of saving.
+     */
+    @Override
+    protected void migrate() {
+        try {
+            long updated = mongoTemplate.updateMulti(
+                    new Query(Criteria.where("version").exists(false)),
+                    new Update().set("version", 0L),
+                    "properties").getModifiedCount();
+            logger.info("Property version backfill completed: {} properties updated.", updated);
+        } catch (Exception e) {
+            logger.error("Property version backfill failed", e);
+        }
+    }
+}
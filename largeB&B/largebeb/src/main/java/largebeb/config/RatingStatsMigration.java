@@ -0,0 +1,120 @@
+package largebeb.config;
+
+import largebeb.model.Property;
+import largebeb.utilities.RatingStats;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Configuration
+public class RatingStatsMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingStatsMigration.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    public RatingStatsMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /*
+      One-time backfill of the running rating sums (ratingStats.*Sum, totalReviews)
+      that the review writes update with $inc. The selection is the sumsBackfilled marker,
+      which only this computation sets: a review written before the backfill reached its
+      property has already created partial sums with $inc, and they are recomputed too.
+      Reviews are summed by MongoDB per batch, so after the first run it is a no-op.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillRatingSums() {
+        Query query = new Query(Criteria.where("ratingStats.sumsBackfilled").ne(true));
+        query.fields().include("_id");
+
+        long updated = 0;
+        try (Stream<Property> properties = mongoTemplate.stream(query, Property.class)) {
+            List<String> batch = new ArrayList<>();
+            for (Property property : (Iterable<Property>) properties::iterator) {
+                batch.add(property.getId());
+                if (batch.size() == BATCH_SIZE) {
+                    updated += backfillBatch(batch, true);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                updated += backfillBatch(batch, true);
+            }
+            logger.info("Rating sums backfill completed: {} properties updated.", updated);
+        } catch (Exception e) {
+            logger.error("Rating sums backfill failed", e);
+        }
+    }
+
+    /*
+      Recomputes the sums of one property from its reviews, for a review write that found
+      them not backfilled yet. Unconditional, so it also overwrites sums the backfill may
+      have computed just before the review was saved.
+     */
+    public void recomputeRatingSums(String propertyId) {
+        backfillBatch(List.of(propertyId), false);
+    }
+
+    // pendingOnly: leave a property alone if a review write recomputed it since it was selected
+    private long backfillBatch(List<String> propertyIds, boolean pendingOnly) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("propertyId").in(propertyIds)),
+                Aggregation.group("propertyId")
+                        .count().as("totalReviews")
+                        .sum("rating").as("ratingSum")
+                        .sum("cleanliness").as("cleanlinessSum")
+                        .sum("communication").as("communicationSum")
+                        .sum("location").as("locationSum")
+                        .sum("value").as("valueSum"));
+
+        Map<String, Document> sums = new HashMap<>();
+        for (Document doc : mongoTemplate.aggregate(aggregation, "reviews", Document.class)) {
+            sums.put(String.valueOf(doc.get("_id")), doc);
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Property.class);
+        for (String propertyId : propertyIds) {
+            Document doc = sums.getOrDefault(propertyId, new Document());
+            Criteria target = Criteria.where("_id").is(propertyId);
+            if (pendingOnly) target.and("ratingStats.sumsBackfilled").ne(true);
+            bulk.updateOne(Query.query(target), new Update()
+                    .set("ratingStats.totalReviews", number(doc, "totalReviews").longValue())
+                    .set("ratingStats.ratingSum", number(doc, "ratingSum").doubleValue())
+                    .set("ratingStats.cleanlinessSum", number(doc, "cleanlinessSum").doubleValue())
+                    .set("ratingStats.communicationSum", number(doc, "communicationSum").doubleValue())
+                    .set("ratingStats.locationSum", number(doc, "locationSum").doubleValue())
+                    .set("ratingStats.valueSum", number(doc, "valueSum").doubleValue())
+                    .set("ratingStats.sumsBackfilled", true));
+        }
+        long updated = bulk.execute().getModifiedCount();
+
+        // Averages from the new sums, same expression as the review writes
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(propertyIds)),
+                RatingStats.recomputeAverages(), Property.class);
+        return updated;
+    }
+
+    private Number number(Document doc, String field) {
+        Object value = doc.get(field);
+        return value instanceof Number ? (Number) value : 0;
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -12,19 +13,40 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.data.redis.connection.RedisSentinelConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 
 import java.time.Duration;
+import java.util.Map;
 
 @Configuration
 @EnableCaching // Enables Spring's annotation-driven cache management
 public class RedisConfig {
 
+    // In-process L1 in front of the Redis caches: entries per cache and time to live
+    private static final int L1_MAX_ENTRIES = 10_000;
+    private static final long L1_TTL_MILLIS = Duration.ofMinutes(5).toMillis();
+
+    // Redis (L2) time to live: default and per cache
+    private static final Duration DEFAULT_CACHE_TTL = Duration.ofHours(1);
+    private static final Map<String, Duration> CACHE_TTLS = Map.of(
+            "topRatedProperties", Duration.ofMinutes(10),
+            "userIdentities", Duration.ofMinutes(10));
+
+    // Value format: "compact" (binary envelope, see CompactRedisSerializer) or "json" (former format)
+    @Value("${redis.serializer:compact}")
+    private String serializerFormat;
+
+    // Compact values larger than this are compressed
+    @Value("${redis.serializer.compression-threshold:1024}")
+    private int compressionThreshold;
+
     @Bean
     public RedisConnectionFactory redisConnectionFactory() {
         RedisSentinelConfiguration sentinelConfig = new RedisSentinelConfiguration()
@@ -41,19 +63,7 @@ public class RedisConfig {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
-        // Configure ObjectMapper to handle Dates and Class Types
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule()); // Supports LocalDate
-        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-        
-        // This allows Jackson to reconstruct the object back to the specific class
-        mapper.activateDefaultTyping(
-            mapper.getPolymorphicTypeValidator(), 
-            ObjectMapper.DefaultTyping.NON_FINAL
-        );
-
-        // Use Jackson2JsonRedisSerializer
-        Jackson2JsonRedisSerializer<Object> serializer = new Jackson2JsonRedisSerializer<>(mapper, Object.class);
+        RedisSerializer<Object> serializer = valueSerializer();
 
         // Set Serializers
         template.setKeySerializer(new StringRedisSerializer());
@@ -65,33 +75,68 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * Container for the Redis pub/sub listeners (e.g. availability updates shared across nodes).
+     * Services register their own channel listeners on it.
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
     /**
      * Configures the CacheManager for the @Cacheable annotation.
-     * This ensures that cached data is stored as JSON (readable) rather than binary,
-     * consistent with the RedisTemplate configuration above.
+     * Values use the same serializer as the RedisTemplate above.
+     * Redis is the shared L2, each node keeps a bounded L1 in front of it (see TwoLevelCacheManager).
      */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     RedisTemplate<String, Object> redisTemplate,
+                                     RedisMessageListenerContainer redisMessageListenerContainer) {
         
-        // Re-configure the ObjectMapper/Serializer for the CacheManager
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-        mapper.activateDefaultTyping(
-            mapper.getPolymorphicTypeValidator(), 
-            ObjectMapper.DefaultTyping.NON_FINAL
-        );
-        Jackson2JsonRedisSerializer<Object> serializer = new Jackson2JsonRedisSerializer<>(mapper, Object.class);
+        // Same value format as the RedisTemplate
+        RedisSerializer<Object> serializer = valueSerializer();
 
         // Define default cache configuration
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofHours(1)) // Optional: Data expires after 1 hour
+                .entryTtl(DEFAULT_CACHE_TTL) // Data expires after 1 hour unless set in CACHE_TTLS
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer));
 
-        return RedisCacheManager.builder(connectionFactory)
-                .cacheDefaults(config)
-                .build();
+        RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(config);
+        CACHE_TTLS.forEach((cacheName, ttl) -> builder.withCacheConfiguration(cacheName, config.entryTtl(ttl)));
+        RedisCacheManager redisCacheManager = builder.build();
+        redisCacheManager.afterPropertiesSet();
+
+        return new TwoLevelCacheManager(redisCacheManager, redisTemplate, redisMessageListenerContainer,
+                L1_MAX_ENTRIES, L1_TTL_MILLIS, cacheName -> CACHE_TTLS.getOrDefault(cacheName, DEFAULT_CACHE_TTL));
+    }
+
+    /**
+     * Serializer of Redis values, chosen by "redis.serializer".
+     * The compact one still reads values written in the JSON format, so switching needs no flush.
+     */
+    private RedisSerializer<Object> valueSerializer() {
+        RedisSerializer<Object> json = jsonSerializer();
+        return "json".equalsIgnoreCase(serializerFormat) ? json : new CompactRedisSerializer(json, compressionThreshold);
+    }
+
+    // JSON with class names (default typing), the original format
+    private RedisSerializer<Object> jsonSerializer() {
+        // Configure ObjectMapper to handle Dates and Class Types
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule()); // Supports LocalDate
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+
+        // This allows Jackson to reconstruct the object back to the specific class
+        mapper.activateDefaultTyping(
+            mapper.getPolymorphicTypeValidator(),
+            ObjectMapper.DefaultTyping.NON_FINAL
+        );
+        return new Jackson2JsonRedisSerializer<>(mapper, Object.class);
     }
 
     @Bean(name="customObjectMapper")
@@ -0,0 +1,133 @@
+package largebeb.config;
+
+import largebeb.model.Property;
+import largebeb.model.Reservation;
+import largebeb.model.Room;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Configuration
+public class ReservationOwnerMigration extends StartupMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationOwnerMigration.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final ReservationPriceMigration priceMigration;
+    private final ReservationCreatedAtMigration createdAtMigration;
+
+    public ReservationOwnerMigration(MongoTemplate mongoTemplate,
+                                     ReservationPriceMigration priceMigration,
+                                     ReservationCreatedAtMigration createdAtMigration) {
+        this.mongoTemplate = mongoTemplate;
+        this.priceMigration = priceMigration;
+        this.createdAtMigration = createdAtMigration;
+    }
+
+    private record Owner(String propertyId, String managerId) {}
+
+    /*
+      Backfill of propertyId and managerId on reservations saved before they were stored.
+      Owners are resolved through the room, with one pass over the properties (rooms and manager only).
+      Reservations of rooms that no longer exist get explicit nulls, so every document is written once
+      and after the first run the query matches nothing.
+      Runs before the web server starts, so PropertyMetricsService.initMetrics (ApplicationReadyEvent)
+      and the manager queries never read reservations without an owner.
+     */
+    @Override
+    protected void migrate() {
+        try {
+            long updated = backfill();
+            logger.info("Reservation owner backfill completed: {} reservations updated.", updated);
+        } catch (Exception e) {
+            logger.error("Reservation owner backfill failed", e);
+        }
+    }
+
+    /*
+      The manager and analytics queries select reservations by these fields only. During a rolling
+      deploy, nodes not upgraded yet keep writing reservations without them, so the backfill runs
+      again every minute. Once nothing is left to backfill it is one indexed query that matches nothing
+      (property_status_checkin_idx indexes a missing propertyId as null).
+      Those nodes also write neither totalPrice nor createdAt, and their saves drop the fields they do
+      not know: every such document misses propertyId too, so price and createdAt are backfilled on the
+      same indexed selection first, before the owner is set and the documents leave it.
+     */
+    @Scheduled(initialDelay = 60000, fixedDelay = 60000)
+    public void backfillLateReservations() {
+        try {
+            Criteria withoutOwner = Criteria.where("propertyId").exists(false);
+            priceMigration.backfill(withoutOwner);
+            createdAtMigration.backfill(withoutOwner);
+            long updated = backfill();
+            if (updated > 0) {
+                logger.info("Reservation owner backfill: {} reservations written without an owner updated.", updated);
+            }
+        } catch (Exception e) {
+            logger.error("Reservation owner backfill failed", e);
+        }
+    }
+
+    private long backfill() {
+        Query query = new Query(Criteria.where("propertyId").exists(false));
+        query.fields().include("roomId");
+
+        long updated = 0;
+        try (Stream<Reservation> reservations = mongoTemplate.stream(query, Reservation.class)) {
+            Map<String, Owner> owners = null;
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Reservation.class);
+            int pending = 0;
+
+            for (Reservation res : (Iterable<Reservation>) reservations::iterator) {
+                // Loaded lazily: nothing to read once every reservation has been backfilled
+                if (owners == null) owners = loadRoomOwners();
+
+                Owner owner = owners.get(res.getRoomId());
+                bulk.updateOne(Query.query(Criteria.where("_id").is(res.getId())), new Update()
+                        .set("propertyId", owner != null ? owner.propertyId() : null)
+                        .set("managerId", owner != null ? owner.managerId() : null));
+                pending++;
+
+                if (pending == BATCH_SIZE) {
+                    updated += bulk.execute().getModifiedCount();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Reservation.class);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                updated += bulk.execute().getModifiedCount();
+            }
+        }
+        return updated;
+    }
+
+    // Property and manager of every room, streamed from the properties
+    private Map<String, Owner> loadRoomOwners() {
+        Query query = new Query();
+        query.fields().include("managerId", "rooms.roomId");
+
+        Map<String, Owner> owners = new HashMap<>();
+        try (Stream<Property> properties = mongoTemplate.stream(query, Property.class)) {
+            for (Property property : (Iterable<Property>) properties::iterator) {
+                if (property.getRooms() == null) continue;
+                Owner owner = new Owner(property.getId(), property.getManagerId());
+                for (Room room : property.getRooms()) {
+                    owners.putIfAbsent(room.getId(), owner);
+                }
+            }
+        }
+        return owners;
+    }
+}
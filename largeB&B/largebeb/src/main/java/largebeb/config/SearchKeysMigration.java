@@ -0,0 +1,84 @@
+package largebeb.config;
+
+import largebeb.model.Property;
+import largebeb.model.Room;
+import largebeb.utilities.SearchKeys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@Configuration
+public class SearchKeysMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchKeysMigration.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    public SearchKeysMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /*
+      One-time backfill of the normalized search keys (cityKey, amenityKeys,
+      rooms.roomTypeKey, rooms.amenityKeys) on properties imported before they existed.
+      Only documents still missing the keys are read, so after the first run it is a no-op.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSearchKeys() {
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("cityKey").exists(false),
+                Criteria.where("amenityKeys").exists(false)));
+        query.fields().include("city", "amenities", "rooms.roomType", "rooms.amenities");
+
+        long updated = 0;
+        try (Stream<Property> properties = mongoTemplate.stream(query, Property.class)) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Property.class);
+            int pending = 0;
+
+            for (Property property : (Iterable<Property>) properties::iterator) {
+                bulk.updateOne(Query.query(Criteria.where("_id").is(property.getId())), buildUpdate(property));
+                pending++;
+
+                if (pending == BATCH_SIZE) {
+                    updated += bulk.execute().getModifiedCount();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Property.class);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                updated += bulk.execute().getModifiedCount();
+            }
+            logger.info("Search keys backfill completed: {} properties updated.", updated);
+        } catch (Exception e) {
+            logger.error("Search keys backfill failed", e);
+        }
+    }
+
+    // Room keys are set by array position: the projection keeps the rooms in stored order
+    private Update buildUpdate(Property property) {
+        Update update = new Update()
+                .set("cityKey", SearchKeys.city(property.getCity()))
+                .set("amenityKeys", SearchKeys.amenities(property.getAmenities()));
+
+        List<Room> rooms = property.getRooms();
+        if (rooms != null) {
+            for (int i = 0; i < rooms.size(); i++) {
+                update.set("rooms." + i + ".roomTypeKey", SearchKeys.roomType(rooms.get(i).getRoomType()));
+                update.set("rooms." + i + ".amenityKeys", SearchKeys.amenities(rooms.get(i).getAmenities()));
+            }
+        }
+        return update;
+    }
+}
@@ -0,0 +1,42 @@
+package largebeb.config;
+
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Backfill that must be complete before the application takes traffic.
+ *
+ * Runs in the lifecycle start phase, before the embedded web server starts
+ * listening, instead of on ApplicationReadyEvent when requests are already
+ * being served. Startup waits for migrate() to return; ApplicationReadyEvent
+ * listeners (metrics, cache warm-ups) therefore see the migrated data.
+ */
+public abstract class StartupMigration implements SmartLifecycle {
+
+    // The embedded web server starts in phase DEFAULT_PHASE - 2048
+    protected static final int BEFORE_WEB_SERVER = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private volatile boolean running = false;
+
+    protected abstract void migrate();
+
+    @Override
+    public void start() {
+        migrate();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return BEFORE_WEB_SERVER;
+    }
+}
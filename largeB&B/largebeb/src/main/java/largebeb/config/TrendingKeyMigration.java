@@ -0,0 +1,39 @@
+package largebeb.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+
+@Configuration
+public class TrendingKeyMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendingKeyMigration.class);
+
+    // All-time sorted set used before the hourly trending buckets
+    private static final String LEGACY_TRENDING_KEY = "trending_properties";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    public TrendingKeyMigration(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /*
+      The legacy set is no longer written or read and has no TTL, so it would stay in Redis forever.
+      Deleting it is idempotent: after the first run the key does not exist.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void deleteLegacyTrendingKey() {
+        try {
+            boolean deleted = Boolean.TRUE.equals(redisTemplate.delete(LEGACY_TRENDING_KEY));
+            if (deleted) {
+                logger.info("Legacy trending key {} deleted.", LEGACY_TRENDING_KEY);
+            }
+        } catch (Exception e) {
+            logger.error("Legacy trending key cleanup failed", e);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package largebeb.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache with an in-process L1 in front of a shared L2 (the Redis cache).
+ *
+ * L1 is a bounded LRU map with a short TTL: hot entries are served from local
+ * memory without a network round trip or deserialization. Reads that miss L1
+ * go to L2 and populate L1, never beyond the time the entry has left in L2, so a
+ * cache with a shorter L2 TTL is not served from L1 after it expired there.
+ * Evictions remove the entry from both tiers and are broadcast (see
+ * TwoLevelCacheManager) so every node drops its L1 copy.
+ *
+ * Loads through get(key, valueLoader) (@Cacheable with sync = true) are single-flight:
+ * concurrent misses on the same key wait for one load instead of all hitting MongoDB.
+ * The node that loaded a key also refreshes it shortly before its L2 expiry, with a
+ * probability that grows as the expiry nears and with the cost of the load
+ * ("XFetch"), so a hot key is reloaded by one caller instead of expiring under load.
+ */
+public class TwoLevelCache implements Cache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    // Early refresh eagerness: > 1 refreshes earlier, < 1 later
+    private static final double EARLY_REFRESH_BETA = 1.0;
+
+    private final String name;
+    private final Cache l2;
+    private final LocalCache l1;
+    private final long l2TtlMillis;
+    private final ToLongFunction<String> l2RemainingTtl;
+    private final InvalidationPublisher publisher;
+
+    // Loads in progress on this node, by key
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    // L2 expiry and load duration of the keys loaded by this node (bounded like L1)
+    private final Map<String, LoadInfo> loadInfo;
+
+    private record LoadInfo(long l2ExpiresAt, long loadMillis) {}
+
+    // Per-tier statistics (L1 evictions = dropped by size, expirations = dropped by TTL)
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l1Misses = new LongAdder();
+    private final LongAdder l1Evictions = new LongAdder();
+    private final LongAdder l1Expirations = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder l2Misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+
+    // Sends an invalidation to the other nodes (key null = whole cache)
+    public interface InvalidationPublisher {
+        void publish(String cacheName, String key);
+    }
+
+    /**
+     * @param ttlMillis L1 time to live
+     * @param l2TtlMillis time to live of the entries in L2, used to time the early refresh
+     * @param l2RemainingTtl time left (ms) to a key in L2, negative if unknown: asked on an L2 hit
+     *                       of a key this node did not write
+     */
+    public TwoLevelCache(String name, Cache l2, int maxEntries, long ttlMillis, long l2TtlMillis,
+                         ToLongFunction<String> l2RemainingTtl, InvalidationPublisher publisher) {
+        this.name = name;
+        this.l2 = l2;
+        this.l1 = new LocalCache(maxEntries, ttlMillis);
+        this.l2TtlMillis = l2TtlMillis;
+        this.l2RemainingTtl = l2RemainingTtl;
+        this.publisher = publisher;
+        this.loadInfo = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LoadInfo> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = String.valueOf(key);
+        ValueWrapper local = l1.get(localKey);
+        if (local != null) {
+            l1Hits.increment();
+            return local;
+        }
+        l1Misses.increment();
+
+        ValueWrapper shared = l2.get(key);
+        if (shared == null) {
+            l2Misses.increment();
+            return null;
+        }
+        l2Hits.increment();
+        l1.put(localKey, new SimpleValueWrapper(shared.get()), remainingL2Ttl(localKey));
+        return shared;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = String.valueOf(key);
+        ValueWrapper wrapper = get(key);
+        if (wrapper == null) {
+            return (T) load(key, localKey, valueLoader);
+        }
+
+        // Hit: this caller may be picked to refresh the entry before it expires in L2
+        if (shouldRefreshEarly(localKey) && !inFlight.containsKey(localKey)) {
+            earlyRefreshes.increment();
+            try {
+                return (T) load(key, localKey, valueLoader);
+            } catch (ValueRetrievalException e) {
+                // The cached value is still valid: serve it, a later hit will retry
+                logger.warn("Early refresh of '{}' key {} failed: {}", name, localKey, e.getMessage());
+            }
+        }
+        return (T) wrapper.get();
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        l2.put(key, value);
+        l1.put(String.valueOf(key), new SimpleValueWrapper(value), l2TtlMillis);
+    }
+
+    @Override
+    public void evict(Object key) {
+        l2.evict(key);
+        evictLocal(String.valueOf(key));
+        loadInfo.remove(String.valueOf(key));
+        publisher.publish(name, String.valueOf(key));
+    }
+
+    @Override
+    public void clear() {
+        l2.clear();
+        clearLocal();
+        loadInfo.clear();
+        publisher.publish(name, null);
+    }
+
+    // Invalidation received from a node (ours included): L1 only, L2 was already updated
+    void evictLocal(String key) {
+        l1.remove(key);
+        invalidations.increment();
+    }
+
+    void clearLocal() {
+        l1.clear();
+        invalidations.increment();
+    }
+
+    // One-line summary of both tiers, e.g. for periodic logging
+    public String getStatistics() {
+        return String.format("L1 size=%d hits=%d misses=%d hitRatio=%.2f evictions=%d expirations=%d invalidations=%d | "
+                        + "L2 hits=%d misses=%d hitRatio=%.2f | loads=%d coalesced=%d earlyRefreshes=%d",
+                l1.size(), l1Hits.sum(), l1Misses.sum(), ratio(l1Hits.sum(), l1Misses.sum()),
+                l1Evictions.sum(), l1Expirations.sum(), invalidations.sum(),
+                l2Hits.sum(), l2Misses.sum(), ratio(l2Hits.sum(), l2Misses.sum()),
+                loads.sum(), coalescedLoads.sum(), earlyRefreshes.sum());
+    }
+
+    long getRequestCount() {
+        return l1Hits.sum() + l1Misses.sum();
+    }
+
+    /*
+     Single-flight load: the first caller runs the loader and stores the value in both tiers,
+     concurrent callers for the same key wait on its future and get the same value (or error).
+    */
+    private Object load(Object key, String localKey, Callable<?> valueLoader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(localKey, future);
+        if (running != null) {
+            coalescedLoads.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            Object value = valueLoader.call();
+            long now = System.currentTimeMillis();
+            loads.increment();
+
+            l2.put(key, value);
+            l1.put(localKey, new SimpleValueWrapper(value), l2TtlMillis);
+            loadInfo.put(localKey, new LoadInfo(now + l2TtlMillis, now - start));
+            future.complete(value);
+            return value;
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            inFlight.remove(localKey, future);
+        }
+    }
+
+    // Time the key has left in L2: known if this node loaded it, asked to L2 otherwise (negative = unknown)
+    private long remainingL2Ttl(String localKey) {
+        LoadInfo info = loadInfo.get(localKey);
+        if (info != null) {
+            return Math.max(0, info.l2ExpiresAt() - System.currentTimeMillis());
+        }
+        try {
+            return l2RemainingTtl.applyAsLong(localKey);
+        } catch (Exception e) {
+            logger.warn("Could not read the L2 expiry of '{}' key {}: {}", name, localKey, e.getMessage());
+            return -1;
+        }
+    }
+
+    // XFetch: refresh when now - loadMillis * beta * ln(random) passes the L2 expiry
+    private boolean shouldRefreshEarly(String localKey) {
+        LoadInfo info = loadInfo.get(localKey);
+        if (info == null) return false; // Loaded by another node: that node refreshes it
+        double gap = -info.loadMillis() * EARLY_REFRESH_BETA * Math.log(1.0 - ThreadLocalRandom.current().nextDouble());
+        return System.currentTimeMillis() + gap >= info.l2ExpiresAt();
+    }
+
+    private static double ratio(long hits, long misses) {
+        return hits + misses > 0 ? (double) hits / (hits + misses) : 0.0;
+    }
+
+    // Access-ordered map: the least recently read entry is dropped first once full
+    private final class LocalCache {
+
+        private record Entry(ValueWrapper value, long expiresAt) {}
+
+        private final long ttlMillis;
+        private final LinkedHashMap<String, Entry> entries;
+
+        LocalCache(int maxEntries, long ttlMillis) {
+            this.ttlMillis = ttlMillis;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    if (size() > maxEntries) {
+                        l1Evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized ValueWrapper get(String key) {
+            Entry entry = entries.get(key);
+            if (entry == null) return null;
+            if (entry.expiresAt() <= System.currentTimeMillis()) {
+                entries.remove(key);
+                l1Expirations.increment();
+                return null;
+            }
+            return entry.value();
+        }
+
+        // Expires after the L1 TTL, or sooner if the entry has less left in L2 (maxTtlMillis, negative = unknown)
+        synchronized void put(String key, ValueWrapper value, long maxTtlMillis) {
+            long ttl = maxTtlMillis >= 0 ? Math.min(ttlMillis, maxTtlMillis) : ttlMillis;
+            entries.put(key, new Entry(value, System.currentTimeMillis() + ttl));
+        }
+
+        synchronized void remove(String key) {
+            entries.remove(key);
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
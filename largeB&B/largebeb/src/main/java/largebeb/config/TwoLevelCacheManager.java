@@ -0,0 +1,121 @@
+package largebeb.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * CacheManager wrapping the Redis cache manager with a TwoLevelCache per cache name.
+ *
+ * Evictions are published on the "cache_invalidation" channel and every node
+ * (this one included) drops the entry from its L1, so @CacheEvict on a write
+ * path refreshes all nodes and not only the one that served the write.
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+    private static final String INVALIDATION_CHANNEL = "cache_invalidation";
+
+    private final CacheManager l2Manager;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Function<String, Duration> l2Ttl;
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager l2Manager, RedisTemplate<String, Object> redisTemplate,
+                                RedisMessageListenerContainer listenerContainer, int maxEntries, long ttlMillis,
+                                Function<String, Duration> l2Ttl) {
+        this.l2Manager = l2Manager;
+        this.redisTemplate = redisTemplate;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.l2Ttl = l2Ttl;
+        listenerContainer.addMessageListener(this::onInvalidation, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, n -> {
+            Cache l2 = l2Manager.getCache(n);
+            return l2 != null ? new TwoLevelCache(n, l2, maxEntries, ttlMillis, l2Ttl.apply(n).toMillis(),
+                    remainingTtl(l2), this::publish) : null;
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return l2Manager.getCacheNames();
+    }
+
+    // Logs the hit ratio and evictions of both tiers for the caches that were used
+    @Scheduled(fixedDelay = 300000)
+    public void logStatistics() {
+        caches.values().stream()
+                .filter(cache -> cache.getRequestCount() > 0)
+                .forEach(cache -> logger.info("Cache '{}': {}", cache.getName(), cache.getStatistics()));
+    }
+
+    // HELPER METHODS
+
+    // PTTL of the Redis key of a cache entry (same key prefix and String keys as the Redis cache):
+    // -1 if it has no expiry, 0 if it expired since it was read
+    private ToLongFunction<String> remainingTtl(Cache l2) {
+        if (!(l2 instanceof RedisCache redisCache)) {
+            return key -> -1;
+        }
+        String prefix = redisCache.getCacheConfiguration().getKeyPrefixFor(redisCache.getName());
+        return key -> {
+            Long ttl = redisTemplate.getExpire(prefix + key, TimeUnit.MILLISECONDS);
+            if (ttl == null) return -1;
+            return ttl == -2 ? 0 : ttl;
+        };
+    }
+
+    private void publish(String cacheName, String key) {
+        try {
+            // HashMap (non-final) keeps its type through the default-typing serializer
+            HashMap<String, String> event = new HashMap<>();
+            event.put("cache", cacheName);
+            event.put("key", key);
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, event);
+        } catch (Exception e) {
+            logger.error("Redis error (Cache invalidation {}:{}): {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onInvalidation(Message message, byte[] pattern) {
+        try {
+            Map<String, String> event = (Map<String, String>) redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (event == null) return;
+
+            TwoLevelCache cache = caches.get(event.get("cache"));
+            if (cache == null) return; // Never used on this node: nothing cached locally
+            if (event.get("key") != null) {
+                cache.evictLocal(event.get("key"));
+            } else {
+                cache.clearLocal();
+            }
+        } catch (Exception e) {
+            logger.error("Could not apply cache invalidation: {}", e.getMessage());
+        }
+    }
+}
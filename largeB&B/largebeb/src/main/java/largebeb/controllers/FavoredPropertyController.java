@@ -3,6 +3,7 @@ package largebeb.controllers;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import largebeb.dto.FavoredPropertyRequestDTO;
 import largebeb.dto.FavoredPropertyResponseDTO;
+import largebeb.dto.PropertyResponseDTO;
 import largebeb.model.Message;
 import largebeb.services.FavoredPropertyService;
 import lombok.RequiredArgsConstructor;
@@ -10,6 +11,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/favored")
 @RequiredArgsConstructor
@@ -25,6 +28,20 @@ public class FavoredPropertyController {
         return ResponseEntity.ok(favoredPropertyService.getFavoredProperties(token));
     }
 
+    // Retrieve the favorite properties as summary cards (name, price, rating, photo)
+    @GetMapping("/properties")
+    public ResponseEntity<?> getFavoredPropertyCards(
+            @RequestHeader("Authorization") String token) {
+        try {
+            List<PropertyResponseDTO> properties = favoredPropertyService.getFavoredPropertyCards(token);
+            return ResponseEntity.ok(properties);
+        } catch (SecurityException e) {
+            return ResponseEntity.status(403).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(e.getMessage());
+        }
+    }
+
     // Add a property to the favorites list
     @PostMapping
     public ResponseEntity<?> addFavoredProperty(
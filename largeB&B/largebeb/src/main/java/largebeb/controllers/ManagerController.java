@@ -18,6 +18,8 @@ import org.springframework.web.bind.annotation.*;
 import java.time.LocalDate;
 import java.util.List;
 
+import static largebeb.dto.PageResponses.toPageResponse;
+
 @RestController
 @RequestMapping("/api/manager")
 @RequiredArgsConstructor
@@ -370,30 +372,56 @@ public class ManagerController {
         }
     }
 
+    // Dashboard views below are paginated: the cursor of the following page is in the X-Next-Cursor header
+
     @GetMapping("/reservations/status/{status}")
     public ResponseEntity<?> getReservationsByStatus(
             @RequestHeader("Authorization") String token,
-            @PathVariable String status) {
+            @PathVariable String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         try {
-            return ResponseEntity.ok(managerReservationService.getReservationsByStatus(token, status));
+            return toPageResponse(managerReservationService.getReservationsByStatus(token, status, cursor, size));
         } catch (Exception e) {
             return handleException(e);
         }
     }
 
     @GetMapping("/reservations/upcoming")
-    public ResponseEntity<?> getUpcomingReservations(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> getUpcomingReservations(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         try {
-            return ResponseEntity.ok(managerReservationService.getUpcomingReservations(token));
+            return toPageResponse(managerReservationService.getUpcomingReservations(token, cursor, size));
         } catch (Exception e) {
             return handleException(e);
         }
     }
 
     @GetMapping("/reservations/current")
-    public ResponseEntity<?> getCurrentReservations(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> getCurrentReservations(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return toPageResponse(managerReservationService.getCurrentReservations(token, cursor, size));
+        } catch (Exception e) {
+            return handleException(e);
+        }
+    }
+
+    /**
+     * Confirmed check-ins of a day ("arriving today" when date is omitted)
+     */
+    @GetMapping("/reservations/arrivals")
+    public ResponseEntity<?> getArrivals(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         try {
-            return ResponseEntity.ok(managerReservationService.getCurrentReservations(token));
+            return toPageResponse(managerReservationService.getArrivals(token, date, cursor, size));
         } catch (Exception e) {
             return handleException(e);
         }
@@ -4,14 +4,19 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import largebeb.dto.PropertyResponseDTO;
 import largebeb.dto.RoomResponseDTO;
 import largebeb.services.PropertyService;
+import largebeb.services.ViewCounterService;
 // AGGIUNTO: Import necessario per gestire il token
 import largebeb.utilities.JwtUtil; 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import static largebeb.dto.PageResponses.toPageResponse;
+
 @RestController
 @RequestMapping("/api/properties")
 @RequiredArgsConstructor
@@ -20,18 +25,24 @@ public class PropertyController {
 
     private final PropertyService propertyService;
     private final largebeb.services.RecommendationService recommendationService;
+    private final ViewCounterService viewCounterService;
     // Needed to extract user ID from token
     private final JwtUtil jwtUtil; 
 
+    private static final String INVALID_DATES_MESSAGE = "Provide both checkIn and checkOut, with checkOut after checkIn.";
+
     // PROPERTY DETAILS (Modified to save History)
     @GetMapping("/{propertyId}")
     public ResponseEntity<PropertyResponseDTO> getPropertyDetails(
             @PathVariable String propertyId,
             @RequestHeader(value = "Authorization", required = false) String token) { // Token is optional (Guest)
         
-        // Retrieve details (also increments Trending on Redis)
+        // Retrieve details (served from cache when possible)
         PropertyResponseDTO property = propertyService.getPropertyDetails(propertyId);
 
+        // Count the view for Trending on every request (batched to Redis)
+        viewCounterService.recordView(propertyId, property.getCity());
+
         // If user is logged in, add to history (Redis List)
         if (token != null && token.startsWith("Bearer ")) {
             try {
@@ -51,6 +62,8 @@ public class PropertyController {
     // USER HISTORY (Read)
     // Note: I corrected this method to use token instead of ?userId parameter
     // because it's more secure (each user only sees their own history).
+    // Items are summary cards (see PropertySummaryService): no description, pois or
+    // latestReviews, first photo only. The details endpoint returns the full property.
     @GetMapping("/history")
     public ResponseEntity<List<PropertyResponseDTO>> getUserHistory(
             @RequestHeader("Authorization") String token) {
@@ -61,26 +74,50 @@ public class PropertyController {
         return ResponseEntity.ok(propertyService.getUserHistory(userId));
     }
 
-    // ADVANCED SEARCH
+    // ADVANCED SEARCH (checkIn/checkOut optional: only properties with a bookable room)
     @GetMapping("/search")
-    public ResponseEntity<List<PropertyResponseDTO>> searchProperties(
+    public ResponseEntity<?> searchProperties(
             @RequestParam(required = false) String city,
             @RequestParam(required = false) Double minPrice,
             @RequestParam(required = false) Double maxPrice,
-            @RequestParam(required = false) List<String> amenities) {
-        return ResponseEntity.ok(propertyService.searchProperties(city, minPrice, maxPrice, amenities));
+            @RequestParam(required = false) List<String> amenities,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkIn,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOut,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        if (!isValidStay(checkIn, checkOut)) {
+            return ResponseEntity.badRequest().body(INVALID_DATES_MESSAGE);
+        }
+        try {
+            return toPageResponse(propertyService.searchProperties(city, minPrice, maxPrice, amenities,
+                    checkIn, checkOut, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
-    // ROOM SEARCH
+    // ROOM SEARCH (checkIn/checkOut optional: only rooms free for the whole stay)
     @GetMapping("/rooms/search")
-    public ResponseEntity<List<RoomResponseDTO>> searchRooms(
+    public ResponseEntity<?> searchRooms(
             @RequestParam(required = false) String city,
             @RequestParam(required = false) String roomType,
             @RequestParam(required = false) Double minPrice,
             @RequestParam(required = false) Double maxPrice,
             @RequestParam(required = false) Integer minCapacity,
-            @RequestParam(required = false) List<String> amenities) {
-        return ResponseEntity.ok(propertyService.searchRooms(city, roomType, minPrice, maxPrice, minCapacity, amenities));
+            @RequestParam(required = false) List<String> amenities,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkIn,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOut,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        if (!isValidStay(checkIn, checkOut)) {
+            return ResponseEntity.badRequest().body(INVALID_DATES_MESSAGE);
+        }
+        try {
+            return toPageResponse(propertyService.searchRooms(city, roomType, minPrice, maxPrice, minCapacity, amenities,
+                    checkIn, checkOut, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     // MAP (GeoSpatial)
@@ -92,10 +129,17 @@ public class PropertyController {
         return ResponseEntity.ok(propertyService.getPropertiesInArea(lat, lon, radiusKm));
     }
 
-    // TRENDING
+    // TRENDING (window: 1h, 24h or 7d, optional city)
+    // Items are summary cards, like the history: no description, pois or latestReviews, first photo only
     @GetMapping("/trending")
-    public ResponseEntity<List<PropertyResponseDTO>> getTrendingProperties() {
-        return ResponseEntity.ok(propertyService.getTrendingProperties());
+    public ResponseEntity<?> getTrendingProperties(
+            @RequestParam(defaultValue = "24h") String window,
+            @RequestParam(required = false) String city) {
+        try {
+            return ResponseEntity.ok(propertyService.getTrendingProperties(window, city));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     // TOP RATED
@@ -104,15 +148,22 @@ public class PropertyController {
         return ResponseEntity.ok(propertyService.getTopRatedProperties());
     }
 
-    // COLLABORATIVE RECOMMENDATIONS
+    // COLLABORATIVE RECOMMENDATIONS (summary cards, like the recommendations below)
     @GetMapping("/{propertyId}/recommendations/collaborative")
     public ResponseEntity<List<PropertyResponseDTO>> getCollaborative(@PathVariable String propertyId) {
         return ResponseEntity.ok(recommendationService.getCollaborativeRecommendations(propertyId));
     }
 
-    // SIMILIAR RECOMMENDATIONS
+    // SIMILIAR RECOMMENDATIONS (summary cards)
     @GetMapping("/{propertyId}/recommendations/similar")
     public ResponseEntity<List<PropertyResponseDTO>> getSimilar(@PathVariable String propertyId) {
         return ResponseEntity.ok(recommendationService.getContentBasedRecommendations(propertyId));
     }
+
+
+    // Dates are optional, but if given both are required and checkOut must follow checkIn
+    private boolean isValidStay(LocalDate checkIn, LocalDate checkOut) {
+        if (checkIn == null && checkOut == null) return true;
+        return checkIn != null && checkOut != null && checkIn.isBefore(checkOut);
+    }
 }
\ No newline at end of file
@@ -13,6 +13,8 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
+import static largebeb.dto.PageResponses.toPageResponse;
+
 @RestController
 @RequestMapping("/api/reservations")
 @RequiredArgsConstructor
@@ -29,15 +31,18 @@ public class ReservationController {
         return null;
     }
 
-    // GET RESERVATIONS HISTORY
+    // GET RESERVATIONS HISTORY (most recent first, paginated with the X-Next-Cursor header, optional status filter)
     @GetMapping("/my-reservations")
-    public ResponseEntity<?> getUserReservations(@RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<?> getUserReservations(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         String token = extractToken(authHeader);
         if (token == null) return ResponseEntity.badRequest().body("Invalid Token");
 
         try {
-            List<largebeb.dto.ReservationResponseDTO> reservations = reservationService.getUserReservations(token);
-            return ResponseEntity.ok(reservations);
+            return toPageResponse(reservationService.getUserReservations(token, status, cursor, size));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         }
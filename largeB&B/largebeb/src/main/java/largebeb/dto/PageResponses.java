@@ -0,0 +1,27 @@
+package largebeb.dto;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * HTTP shape of a keyset page, shared by every paginated endpoint.
+ *
+ * The body stays a plain list, as before pagination, and the cursor of the
+ * next page travels in the X-Next-Cursor header (absent on the last page).
+ */
+public final class PageResponses {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private PageResponses() {
+    }
+
+    public static <T> ResponseEntity<List<T>> toPageResponse(SearchPageDTO<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+}
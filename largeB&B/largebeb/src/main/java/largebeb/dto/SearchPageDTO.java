@@ -0,0 +1,19 @@
+package largebeb.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchPageDTO<T> {
+    private List<T> items;
+
+    // Opaque cursor to pass back for the next page (null on the last page)
+    private String nextCursor;
+}
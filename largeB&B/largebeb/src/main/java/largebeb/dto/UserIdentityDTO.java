@@ -0,0 +1,15 @@
+package largebeb.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Who the caller is: the part of the user needed to authenticate and authorize requests
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserIdentityDTO {
+    private String id;
+    private String role;
+    private String email;
+}
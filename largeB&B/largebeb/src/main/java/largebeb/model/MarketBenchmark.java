@@ -0,0 +1,32 @@
+package largebeb.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Market figures of a group of properties (a city, a region or all of them)
+@Data
+@NoArgsConstructor
+@Document(collection = "market_benchmarks")
+public class MarketBenchmark {
+
+    @Id
+    private String id;            // e.g. "CITY:roma", "REGION:lazio", "ALL"
+
+    private long propertyCount;
+
+    private double avgRevenue;
+    private double avgOccupancy;
+    private double avgRating;     // Over rated properties only
+    private double avgPrice;      // Over priced properties only
+
+    // Sorted values (or quantiles on large markets) used to compute percentiles
+    private List<Double> revenueBreakpoints;
+    private List<Double> occupancyBreakpoints;
+    private List<Double> ratingBreakpoints;
+
+    private LocalDateTime computedAt;
+}
@@ -4,6 +4,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
@@ -31,13 +32,20 @@ import largebeb.utilities.RatingStats;
 
     // Price Range: Optimizes "Find property with room price in range"
     // Single field index (not compound) since queries filter only on adults price
-    @CompoundIndex(name = "room_price_idx", def = "{'rooms.pricePerNightAdults': 1}")
+    @CompoundIndex(name = "room_price_idx", def = "{'rooms.pricePerNightAdults': 1}"),
+
+    // City Search: equality on the normalized city, then _id for keyset pagination
+    @CompoundIndex(name = "city_search_idx", def = "{'cityKey': 1, '_id': 1}")
 })
 public class Property {
 
     @Id
     private String id;
 
+    // Optimistic locking for full-document saves; targeted room and review updates increment it too
+    @Version
+    private Long version;
+
     // TEXT SEARCH INDEXES
     // Weight = 2 means matches in 'name' rank higher than matches in 'description'
     @TextIndexed(weight = 3)
@@ -61,6 +69,13 @@ public class Property {
     @TextIndexed
     private String city;
 
+    // NORMALIZED SEARCH KEYS (see SearchKeys)
+    // Lower-cased city and cleaned amenity tokens: searched with equality / $all
+    private String cityKey;
+
+    @Indexed
+    private List<String> amenityKeys;
+
     // MANAGER DASHBOARD INDEX
     // Fast lookup for "My Properties" view
     @Indexed
@@ -0,0 +1,30 @@
+package largebeb.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.LocalDateTime;
+
+// Precomputed benchmark figures of one property, refreshed by PropertyMetricsService
+@Data
+@NoArgsConstructor
+@Document(collection = "property_metrics")
+public class PropertyMetrics {
+
+    @Id
+    private String propertyId;   // Same id as the property
+
+    @Indexed
+    private String cityKey;      // Normalized city (see SearchKeys)
+    @Indexed
+    private String regionKey;    // Normalized region
+
+    private double revenue;      // Last 12 months, non-cancelled reservations
+    private double occupancy;    // Last 12 months, percentage of room-nights booked
+    private double rating;       // Average review rating (0 = no reviews)
+    private double avgPrice;     // Average adult price per night of the rooms
+
+    private LocalDateTime computedAt;
+}
@@ -23,6 +23,16 @@ import java.time.LocalDateTime;
 // AVAILABILITY CHECK INDEX (CRITICAL)
 // Optimizes the query: "Is Room X free between Date A and Date B?"
 @CompoundIndex(name = "room_availability_idx", def = "{'roomId': 1, 'dates.checkIn': 1, 'dates.checkOut': 1}")
+// "My Bookings" pages: a user's reservations, most recent first (keyset on createdAt, _id)
+@CompoundIndex(name = "user_history_created_idx", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
+// MANAGER DASHBOARD INDEXES (on the denormalized managerId / propertyId)
+// All the manager's reservations in a date range (dashboard, aggregated analytics)
+@CompoundIndex(name = "manager_checkin_idx", def = "{'managerId': 1, 'dates.checkIn': 1}")
+// Reservations by status, ordered by check-in (upcoming, current, arrivals) or newest first
+@CompoundIndex(name = "manager_status_checkin_idx", def = "{'managerId': 1, 'status': 1, 'dates.checkIn': 1, '_id': 1}")
+@CompoundIndex(name = "manager_status_created_idx", def = "{'managerId': 1, 'status': 1, 'createdAt': -1, '_id': -1}")
+// One property's reservations (property analytics, payment status, delete checks)
+@CompoundIndex(name = "property_status_checkin_idx", def = "{'propertyId': 1, 'status': 1, 'dates.checkIn': 1}")
 public class Reservation {
 
     @Id
@@ -41,10 +51,20 @@ public class Reservation {
     // Indexed as part of the Compound Index above, but also useful alone
     @Indexed
     private String roomId;
+
+    // Copied from the room's property when the reservation is created, so manager
+    // queries do not have to expand the portfolio into a list of room ids
+    private String propertyId;
+    private String managerId;
     
     // Nested object for 'dates'
     private ReservationDates dates;
 
+    // Amount charged and billed nights, frozen at booking (and modification) time
+    // so revenue does not change when the room prices do
+    private Double totalPrice;
+    private Integer nights;
+
     @CreatedDate // Automatically sets the date when saved
     private LocalDateTime createdAt;
 
@@ -4,6 +4,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDate;
 
@@ -14,6 +15,8 @@ import jakarta.validation.constraints.Min;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "reviews")
+// Latest reviews of a property (refill of Property.latestReviews, period filters)
+@CompoundIndex(name = "property_date_idx", def = "{'propertyId': 1, 'creationDate': -1}")
 public class Review {
 
     @Id
@@ -21,6 +21,10 @@ public class Room {
     private String propertyId; 
     
     private String roomType; 
+
+    // Normalized room type (see SearchKeys), searched with equality
+    @Indexed
+    private String roomTypeKey;
     @TextIndexed(weight = 2)
     private String name;  
     @Field("beds")
@@ -29,6 +33,9 @@ public class Room {
     // Specific filter for room features (e.g., "En-suite bathroom")
     private List<String> amenities;
 
+    // Cleaned amenity tokens (see SearchKeys), searched with $all
+    private List<String> amenityKeys;
+
     private List<String> photos;
     
     private String status; 
@@ -0,0 +1,9 @@
+package largebeb.repository;
+
+import largebeb.model.PropertyMetrics;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PropertyMetricsRepository extends MongoRepository<PropertyMetrics, String> {
+}
@@ -36,6 +36,18 @@ public interface ReservationRepository extends MongoRepository<Reservation, Stri
     @Query("{ 'roomId': ?0, 'status': { $ne: 'cancelled' }, 'dates.checkIn': { $lt: ?2 }, 'dates.checkOut': { $gt: ?1 } }")
     List<Reservation> findOverlappingReservations(String roomId, LocalDate newCheckIn, LocalDate newCheckOut);
 
+    /*
+     Bulk version of the check above: among the given rooms, returns the IDs of
+     those that have at least one non-cancelled reservation overlapping the range.
+     One query for all the candidate rooms of a search (uses room_availability_idx)
+    */
+    @Aggregation(pipeline = {
+        "{ '$match': { 'roomId': { $in: ?0 }, 'status': { $nin: ['CANCELLED', 'cancelled'] }, 'dates.checkIn': { $lt: ?2 }, 'dates.checkOut': { $gt: ?1 } } }",
+        "{ '$group': { '_id': '$roomId' } }",
+        "{ '$project': { '_id': 0, 'roomId': '$_id' } }"
+    })
+    List<String> findBookedRoomIds(List<String> roomIds, LocalDate checkIn, LocalDate checkOut);
+
     // ==================== AGGREGATION QUERIES ====================
 
     // Get reservation statistics by status for multiple rooms within a date range
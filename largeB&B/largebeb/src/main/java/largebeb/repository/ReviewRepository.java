@@ -30,6 +30,9 @@ public interface ReviewRepository extends MongoRepository<Review, String> {
     // Finds reviews ordered by creation date
     List<Review> findByPropertyIdOrderByCreationDateAsc(String propertyId);
 
+    // Finds the 10 most recent reviews of a property (embedded latestReviews)
+    List<Review> findTop10ByPropertyIdOrderByCreationDateDesc(String propertyId);
+
     // ==================== AGGREGATION QUERIES ====================
 
     // Calculate average rating and statistics for a property
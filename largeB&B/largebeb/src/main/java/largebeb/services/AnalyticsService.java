@@ -2,15 +2,14 @@ package largebeb.services;
 
 import largebeb.dto.*;
 import largebeb.dto.AnalyticsResponseDTO.*;
+import largebeb.model.MarketBenchmark;
 import largebeb.model.Property;
-import largebeb.model.RegisteredUser;
+import largebeb.model.PropertyMetrics;
 import largebeb.model.Reservation;
 import largebeb.model.Review;
 import largebeb.model.Room;
 import largebeb.repository.PropertyRepository;
-import largebeb.repository.ReservationRepository;
 import largebeb.repository.ReviewRepository;
-import largebeb.repository.UserRepository;
 import largebeb.utilities.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -18,6 +17,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.*;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.time.DayOfWeek;
@@ -26,6 +26,7 @@ import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * AnalyticsService - Comprehensive Business Intelligence for Property Managers
@@ -44,11 +45,11 @@ public class AnalyticsService {
     private static final Logger log = LoggerFactory.getLogger(AnalyticsService.class);
 
     private final PropertyRepository propertyRepository;
-    private final ReservationRepository reservationRepository;
     private final ReviewRepository reviewRepository;
-    private final UserRepository userRepository;
+    private final UserIdentityService userIdentityService;
     private final MongoTemplate mongoTemplate;
     private final JwtUtil jwtUtil;
+    private final PropertyMetricsService propertyMetricsService;
 
     /**
      * Get comprehensive analytics for a specific property with optional date range
@@ -57,7 +58,7 @@ public class AnalyticsService {
                                                       LocalDate startDate, LocalDate endDate) {
         log.info("Getting analytics for property: {} with date range: {} to {}", propertyId, startDate, endDate);
         
-        RegisteredUser manager = getManagerFromToken(token);
+        UserIdentityDTO manager = getManagerFromToken(token);
         
         Property property = propertyRepository.findById(propertyId)
                 .orElseThrow(() -> {
@@ -82,7 +83,7 @@ public class AnalyticsService {
                                                                  LocalDate startDate, LocalDate endDate) {
         log.info("Getting analytics for all properties with date range: {} to {}", startDate, endDate);
         
-        RegisteredUser manager = getManagerFromToken(token);
+        UserIdentityDTO manager = getManagerFromToken(token);
         List<Property> myProperties = propertyRepository.findByManagerId(manager.getId());
 
         log.info("Found {} properties for manager {}", myProperties.size(), manager.getId());
@@ -98,7 +99,7 @@ public class AnalyticsService {
     public AnalyticsResponseDTO getAggregatedAnalytics(String token, LocalDate startDate, LocalDate endDate) {
         log.info("Getting aggregated analytics for all properties");
         
-        RegisteredUser manager = getManagerFromToken(token);
+        UserIdentityDTO manager = getManagerFromToken(token);
         List<Property> myProperties = propertyRepository.findByManagerId(manager.getId());
 
         if (myProperties.isEmpty()) {
@@ -123,7 +124,7 @@ public class AnalyticsService {
                                                   LocalDate startDate, LocalDate endDate) {
         log.info("Getting rating evolution for property: {}", propertyId);
         
-        RegisteredUser manager = getManagerFromToken(token);
+        UserIdentityDTO manager = getManagerFromToken(token);
         
         Property property = propertyRepository.findById(propertyId)
                 .orElseThrow(() -> new IllegalArgumentException("Property not found"));
@@ -142,7 +143,7 @@ public class AnalyticsService {
                                                       LocalDate startDate, LocalDate endDate) {
         log.info("Getting reservation trends for property: {}", propertyId);
         
-        RegisteredUser manager = getManagerFromToken(token);
+        UserIdentityDTO manager = getManagerFromToken(token);
         
         Property property = propertyRepository.findById(propertyId)
                 .orElseThrow(() -> new IllegalArgumentException("Property not found"));
@@ -151,12 +152,7 @@ public class AnalyticsService {
             throw new SecurityException("You can only view analytics of your own properties.");
         }
 
-        List<String> roomIds = getRoomIds(property);
-        List<Reservation> reservations = roomIds.isEmpty() 
-                ? new ArrayList<>() 
-                : reservationRepository.findByRoomIdIn(roomIds);
-
-        return calculateReservationTrends(reservations, startDate, endDate);
+        return calculateReservationTrends(accumulateReservations(property, startDate, endDate));
     }
 
     /**
@@ -165,7 +161,7 @@ public class AnalyticsService {
     public ComparativePerformanceDTO getComparativePerformance(String token, String propertyId) {
         log.info("Getting comparative performance for property: {}", propertyId);
         
-        RegisteredUser manager = getManagerFromToken(token);
+        UserIdentityDTO manager = getManagerFromToken(token);
         
         Property property = propertyRepository.findById(propertyId)
                 .orElseThrow(() -> new IllegalArgumentException("Property not found"));
@@ -184,64 +180,58 @@ public class AnalyticsService {
                                                                   String managerId) {
         log.debug("Calculating comprehensive analytics for property: {}", property.getName());
 
-        List<String> roomIds = getRoomIds(property);
-        List<Reservation> reservations = roomIds.isEmpty() 
-                ? new ArrayList<>() 
-                : reservationRepository.findByRoomIdIn(roomIds);
-
         LocalDate effectiveStart = startDate;
         LocalDate effectiveEnd = endDate != null ? endDate : LocalDate.now();
 
-        // Filter by date range
-        if (startDate != null) {
-            reservations = filterReservationsByDateRange(reservations, startDate, effectiveEnd);
-        }
-
-        // Basic statistics
-        BasicStats stats = calculateBasicStats(reservations, property);
-
-        // Calculate occupancy
-        double occupancyRate = calculateOccupancyRate(property, reservations, effectiveStart, effectiveEnd);
+        // One pass over the reservations (filtered by date range in the query) computes
+        // basic stats, occupancy, per-room and monthly figures and the trends together
+        ReservationAccumulator acc = accumulateReservations(property, effectiveStart, effectiveEnd);
 
         // Per-room analytics
-        List<RoomAnalyticsDTO> roomAnalytics = calculateRoomAnalytics(property, reservations, effectiveStart, effectiveEnd);
+        List<RoomAnalyticsDTO> roomAnalytics = buildRoomAnalytics(acc, effectiveStart, effectiveEnd);
 
         // Monthly breakdown
-        Map<String, MonthlyStatsDTO> monthlyBreakdown = calculateMonthlyBreakdown(reservations, property);
+        Map<String, MonthlyStatsDTO> monthlyBreakdown = new TreeMap<>();
+        acc.forEachMonth((month, bookings, cancelled, active, revenue, guests) -> {
+            if (active > 0) {
+                monthlyBreakdown.put(month, MonthlyStatsDTO.builder()
+                        .reservations(active)
+                        .revenue(revenue)
+                        .guests(guests)
+                        .build());
+            }
+        });
 
         // Rating Analytics
         RatingAnalyticsDTO ratingAnalytics = calculateRatingAnalytics(property.getId(), effectiveStart, effectiveEnd);
 
         // Reservation Trends
-        ReservationTrendsDTO reservationTrends = calculateReservationTrends(reservations, effectiveStart, effectiveEnd);
+        ReservationTrendsDTO reservationTrends = calculateReservationTrends(acc);
 
         // Comparative Performance
         ComparativePerformanceDTO comparativePerformance = calculateComparativePerformance(property);
 
-        // Most booked room type
-        String mostBookedRoomType = calculateMostBookedRoomType(reservations, property);
-
-        // Average guests per room per booking
-        double avgGuestsPerRoomPerBooking = calculateAvgGuestsPerRoomPerBooking(reservations);
+        long nonCancelled = acc.getActive();
+        double avgRevenuePerReservation = nonCancelled > 0 ? roundToTwoDecimals(acc.getRevenue() / nonCancelled) : 0;
 
         return AnalyticsResponseDTO.builder()
                 .propertyId(property.getId())
                 .propertyName(property.getName())
                 .periodStart(effectiveStart)
                 .periodEnd(effectiveEnd)
-                .totalReservations(stats.totalReservations)
-                .confirmedReservations(stats.confirmedReservations)
-                .cancelledReservations(stats.cancelledReservations)
-                .completedReservations(stats.completedReservations)
-                .totalRevenue(roundToTwoDecimals(stats.totalRevenue))
-                .averageRevenuePerReservation(stats.avgRevenuePerReservation)
-                .occupancyRate(roundToTwoDecimals(occupancyRate))
-                .totalNightsBooked(stats.totalNights)
-                .totalGuests(stats.totalAdults + stats.totalChildren)
-                .totalAdults(stats.totalAdults)
-                .totalChildren(stats.totalChildren)
-                .mostBookedRoomType(mostBookedRoomType)
-                .avgGuestsPerRoomPerBooking(roundToTwoDecimals(avgGuestsPerRoomPerBooking))
+                .totalReservations(acc.getTotal())
+                .confirmedReservations(acc.getConfirmed())
+                .cancelledReservations(acc.getCancelled())
+                .completedReservations(acc.getCompleted())
+                .totalRevenue(roundToTwoDecimals(acc.getRevenue()))
+                .averageRevenuePerReservation(avgRevenuePerReservation)
+                .occupancyRate(roundToTwoDecimals(acc.getOccupancyRate()))
+                .totalNightsBooked(acc.getNights())
+                .totalGuests(acc.getAdults() + acc.getChildren())
+                .totalAdults(acc.getAdults())
+                .totalChildren(acc.getChildren())
+                .mostBookedRoomType(acc.getMostBookedRoomType())
+                .avgGuestsPerRoomPerBooking(roundToTwoDecimals(acc.getAvgGuestsPerBooking()))
                 .roomAnalytics(roomAnalytics)
                 .monthlyBreakdown(monthlyBreakdown)
                 .ratingAnalytics(ratingAnalytics)
@@ -388,13 +378,12 @@ public class AnalyticsService {
     // RESERVATION TRENDS ANALYSIS
 
     /**
-     * Calculates reservation trends and booking patterns
+     * Calculates reservation trends and booking patterns from the accumulated reservations
      */
-    private ReservationTrendsDTO calculateReservationTrends(List<Reservation> reservations, 
-                                                            LocalDate startDate, LocalDate endDate) {
+    private ReservationTrendsDTO calculateReservationTrends(ReservationAccumulator acc) {
         log.debug("Calculating reservation trends");
 
-        if (reservations.isEmpty()) {
+        if (acc.getTotal() == 0) {
             return ReservationTrendsDTO.builder()
                     .avgBookingsPerMonth(0.0)
                     .bookingGrowthRate(0.0)
@@ -409,35 +398,19 @@ public class AnalyticsService {
                     .build();
         }
 
-        // Filter by date range
-        List<Reservation> filteredRes = reservations;
-        if (startDate != null && endDate != null) {
-            filteredRes = filterReservationsByDateRange(reservations, startDate, endDate);
-        }
-
-        // Bookings by day of week (based on check-in date)
-        Map<String, Long> byDayOfWeek = new EnumMap<>(DayOfWeek.class).entrySet().stream()
-                .collect(Collectors.toMap(e -> e.getKey().toString(), e -> 0L));
-        
-        byDayOfWeek = filteredRes.stream()
-                .filter(r -> r.getDates() != null && r.getDates().getCheckIn() != null)
-                .collect(Collectors.groupingBy(
-                        r -> r.getDates().getCheckIn().getDayOfWeek().toString(),
-                        Collectors.counting()
-                ));
-        // Ensure all days present
+        // Bookings by day of week (based on check-in date), all days present
+        Map<String, Long> byDayOfWeek = new HashMap<>();
         for (DayOfWeek day : DayOfWeek.values()) {
-            byDayOfWeek.putIfAbsent(day.toString(), 0L);
+            byDayOfWeek.put(day.toString(), acc.getDayOfWeekBookings(day.getValue() - 1));
         }
 
-        // Bookings by month
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM");
-        Map<String, Long> byMonth = new TreeMap<>(filteredRes.stream()
-                .filter(r -> r.getDates() != null && r.getDates().getCheckIn() != null)
-                .collect(Collectors.groupingBy(
-                        r -> r.getDates().getCheckIn().format(formatter),
-                        Collectors.counting()
-                )));
+        // Bookings and cancellation rates by month
+        Map<String, Long> byMonth = new TreeMap<>();
+        Map<String, Double> monthlyCancellation = new TreeMap<>();
+        acc.forEachMonth((month, bookings, cancelled, active, revenue, guests) -> {
+            byMonth.put(month, bookings);
+            monthlyCancellation.put(month, roundToTwoDecimals(cancelled * 100.0 / bookings));
+        });
 
         // Average bookings per month
         double avgPerMonth = byMonth.isEmpty() ? 0 : 
@@ -446,60 +419,16 @@ public class AnalyticsService {
         // Booking growth rate (compare first half vs second half of period)
         double growthRate = calculateGrowthRate(byMonth);
 
-        // Lead time analysis (days between creation and check-in)
-        // Since we don't have creation date in Reservation, we'll estimate based on check-in patterns
-        DoubleSummaryStatistics leadTimeStats = filteredRes.stream()
-                .filter(r -> r.getDates() != null && r.getCreatedAt() != null)
-                .mapToDouble(r -> ChronoUnit.DAYS.between(
-                        r.getCreatedAt().toLocalDate(), 
-                        r.getDates().getCheckIn()))
-                .filter(d -> d >= 0)
-                .summaryStatistics();
-
-        double avgLeadTime = leadTimeStats.getCount() > 0 ? leadTimeStats.getAverage() : 0;
-        double minLeadTime = leadTimeStats.getCount() > 0 ? leadTimeStats.getMin() : 0;
-        double maxLeadTime = leadTimeStats.getCount() > 0 ? leadTimeStats.getMax() : 0;
-
-        // Stay duration patterns
-        DoubleSummaryStatistics stayStats = filteredRes.stream()
-                .filter(r -> r.getDates() != null)
-                .filter(r -> !"CANCELLED".equalsIgnoreCase(r.getStatus()))
-                .mapToDouble(r -> ChronoUnit.DAYS.between(
-                        r.getDates().getCheckIn(), 
-                        r.getDates().getCheckOut()))
-                .filter(d -> d > 0)
-                .summaryStatistics();
-
-        double avgStay = stayStats.getCount() > 0 ? stayStats.getAverage() : 0;
-
         // Stay duration distribution
-        Map<String, Long> stayDistribution = filteredRes.stream()
-                .filter(r -> r.getDates() != null && !"CANCELLED".equalsIgnoreCase(r.getStatus()))
-                .map(r -> ChronoUnit.DAYS.between(r.getDates().getCheckIn(), r.getDates().getCheckOut()))
-                .filter(d -> d > 0)
-                .collect(Collectors.groupingBy(
-                        this::categorizeStayDuration,
-                        Collectors.counting()
-                ));
+        Map<String, Long> stayDistribution = new HashMap<>();
+        for (int i = 0; i < ReservationAccumulator.STAY_BUCKETS.length; i++) {
+            if (acc.getStayBucket(i) > 0) {
+                stayDistribution.put(ReservationAccumulator.STAY_BUCKETS[i], acc.getStayBucket(i));
+            }
+        }
 
         // Cancellation rate
-        long totalBookings = filteredRes.size();
-        long cancelled = filteredRes.stream()
-                .filter(r -> "CANCELLED".equalsIgnoreCase(r.getStatus()))
-                .count();
-        double cancellationRate = totalBookings > 0 ? (cancelled * 100.0 / totalBookings) : 0;
-
-        // Monthly cancellation rates
-        Map<String, Double> monthlyCancellation = new TreeMap<>();
-        Map<String, List<Reservation>> resByMonth = filteredRes.stream()
-                .filter(r -> r.getDates() != null && r.getDates().getCheckIn() != null)
-                .collect(Collectors.groupingBy(r -> r.getDates().getCheckIn().format(formatter)));
-        
-        resByMonth.forEach((month, list) -> {
-            long total = list.size();
-            long cancel = list.stream().filter(r -> "CANCELLED".equalsIgnoreCase(r.getStatus())).count();
-            monthlyCancellation.put(month, total > 0 ? roundToTwoDecimals(cancel * 100.0 / total) : 0.0);
-        });
+        double cancellationRate = acc.getCancelled() * 100.0 / acc.getTotal();
 
         // Peak and low season identification
         List<String> peakMonths = identifyPeakMonths(byMonth);
@@ -510,10 +439,10 @@ public class AnalyticsService {
                 .bookingGrowthRate(roundToTwoDecimals(growthRate))
                 .bookingsByDayOfWeek(byDayOfWeek)
                 .bookingsByMonth(byMonth)
-                .avgLeadTimeDays(roundToTwoDecimals(avgLeadTime))
-                .minLeadTimeDays(roundToTwoDecimals(minLeadTime))
-                .maxLeadTimeDays(roundToTwoDecimals(maxLeadTime))
-                .avgStayDuration(roundToTwoDecimals(avgStay))
+                .avgLeadTimeDays(roundToTwoDecimals(acc.getAvgLeadTime()))
+                .minLeadTimeDays(roundToTwoDecimals(acc.getMinLeadTime()))
+                .maxLeadTimeDays(roundToTwoDecimals(acc.getMaxLeadTime()))
+                .avgStayDuration(roundToTwoDecimals(acc.getAvgStay()))
                 .stayDurationDistribution(stayDistribution)
                 .cancellationRate(roundToTwoDecimals(cancellationRate))
                 .monthlyCancellationRates(monthlyCancellation)
@@ -525,18 +454,15 @@ public class AnalyticsService {
     // COMPARATIVE PERFORMANCE ANALYSIS
 
     /**
-     * Calculates comparative performance against similar properties using MongoDB aggregation
+     * Calculates comparative performance against similar properties from the precomputed market benchmarks
      */
     private ComparativePerformanceDTO calculateComparativePerformance(Property property) {
         log.debug("Calculating comparative performance for property: {}", property.getName());
 
-        String city = property.getCity();
-        String region = property.getRegion();
+        // Market figures are precomputed nightly by PropertyMetricsService
+        MarketBenchmark market = propertyMetricsService.findBenchmark(property).orElse(null);
 
-        // Find comparable properties in the same city/region
-        List<Property> comparableProperties = findComparableProperties(property);
-        
-        if (comparableProperties.size() <= 1) {
+        if (market == null || market.getPropertyCount() <= 1) {
             // Not enough data for comparison
             return ComparativePerformanceDTO.builder()
                     .comparisonScope("Insufficient data for comparison")
@@ -546,37 +472,18 @@ public class AnalyticsService {
                     .build();
         }
 
-        String scope = city != null ? "Same City: " + city : 
-                       (region != null ? "Same Region: " + region : "All Properties");
+        String scope = market.getId().startsWith(PropertyMetricsService.SCOPE_CITY) ? "Same City: " + property.getCity() :
+                       (market.getId().startsWith(PropertyMetricsService.SCOPE_REGION) ? "Same Region: " + property.getRegion() : "All Properties");
 
-        // Calculate metrics for all comparable properties
-        List<PropertyMetrics> allMetrics = comparableProperties.stream()
-                .map(this::calculatePropertyMetrics)
-                .collect(Collectors.toList());
-
-        // Find this property's metrics
-        PropertyMetrics thisPropertyMetrics = allMetrics.stream()
-                .filter(m -> m.propertyId.equals(property.getId()))
-                .findFirst()
-                .orElse(new PropertyMetrics());
-
-        // Calculate market averages
-        double avgMarketRevenue = allMetrics.stream().mapToDouble(m -> m.revenue).average().orElse(0);
-        double avgMarketOccupancy = allMetrics.stream().mapToDouble(m -> m.occupancy).average().orElse(0);
-        double avgMarketRating = allMetrics.stream().filter(m -> m.rating > 0).mapToDouble(m -> m.rating).average().orElse(0);
-        double marketAvgPrice = allMetrics.stream().filter(m -> m.avgPrice > 0).mapToDouble(m -> m.avgPrice).average().orElse(0);
+        PropertyMetrics thisPropertyMetrics = propertyMetricsService.getMetrics(property);
 
         // Calculate percentiles
-        double revenuePercentile = calculatePercentile(allMetrics.stream().mapToDouble(m -> m.revenue).toArray(), 
-                                                        thisPropertyMetrics.revenue);
-        double occupancyPercentile = calculatePercentile(allMetrics.stream().mapToDouble(m -> m.occupancy).toArray(), 
-                                                          thisPropertyMetrics.occupancy);
-        double ratingPercentile = calculatePercentile(allMetrics.stream().filter(m -> m.rating > 0)
-                                                        .mapToDouble(m -> m.rating).toArray(), 
-                                                       thisPropertyMetrics.rating);
+        double revenuePercentile = PropertyMetricsService.percentile(market.getRevenueBreakpoints(), thisPropertyMetrics.getRevenue());
+        double occupancyPercentile = PropertyMetricsService.percentile(market.getOccupancyBreakpoints(), thisPropertyMetrics.getOccupancy());
+        double ratingPercentile = PropertyMetricsService.percentile(market.getRatingBreakpoints(), thisPropertyMetrics.getRating());
 
         // Price positioning
-        String pricePositioning = determinePricePositioning(thisPropertyMetrics.avgPrice, marketAvgPrice);
+        String pricePositioning = determinePricePositioning(thisPropertyMetrics.getAvgPrice(), market.getAvgPrice());
 
         // Overall performance score (weighted average)
         double performanceScore = calculatePerformanceScore(revenuePercentile, occupancyPercentile, ratingPercentile);
@@ -584,18 +491,18 @@ public class AnalyticsService {
 
         return ComparativePerformanceDTO.builder()
                 .comparisonScope(scope)
-                .propertiesCompared(comparableProperties.size() - 1) // Exclude self
-                .propertyRevenue(roundToTwoDecimals(thisPropertyMetrics.revenue))
-                .avgMarketRevenue(roundToTwoDecimals(avgMarketRevenue))
+                .propertiesCompared((int) market.getPropertyCount() - 1) // Exclude self
+                .propertyRevenue(roundToTwoDecimals(thisPropertyMetrics.getRevenue()))
+                .avgMarketRevenue(roundToTwoDecimals(market.getAvgRevenue()))
                 .revenuePercentile(roundToTwoDecimals(revenuePercentile))
-                .propertyOccupancy(roundToTwoDecimals(thisPropertyMetrics.occupancy))
-                .avgMarketOccupancy(roundToTwoDecimals(avgMarketOccupancy))
+                .propertyOccupancy(roundToTwoDecimals(thisPropertyMetrics.getOccupancy()))
+                .avgMarketOccupancy(roundToTwoDecimals(market.getAvgOccupancy()))
                 .occupancyPercentile(roundToTwoDecimals(occupancyPercentile))
-                .propertyRating(roundToTwoDecimals(thisPropertyMetrics.rating))
-                .avgMarketRating(roundToTwoDecimals(avgMarketRating))
+                .propertyRating(roundToTwoDecimals(thisPropertyMetrics.getRating()))
+                .avgMarketRating(roundToTwoDecimals(market.getAvgRating()))
                 .ratingPercentile(roundToTwoDecimals(ratingPercentile))
-                .propertyAvgPrice(roundToTwoDecimals(thisPropertyMetrics.avgPrice))
-                .marketAvgPrice(roundToTwoDecimals(marketAvgPrice))
+                .propertyAvgPrice(roundToTwoDecimals(thisPropertyMetrics.getAvgPrice()))
+                .marketAvgPrice(roundToTwoDecimals(market.getAvgPrice()))
                 .pricePositioning(pricePositioning)
                 .overallPerformanceScore(roundToTwoDecimals(performanceScore))
                 .performanceCategory(performanceCategory)
@@ -605,21 +512,18 @@ public class AnalyticsService {
     // MONGODB AGGREGATION PIPELINE
 
     /**
-     * Uses MongoDB aggregation pipeline for efficient revenue calculation
+     * Uses MongoDB aggregation pipeline for efficient revenue calculation:
+     * counts, guests and revenue (stored totalPrice) come out of a single $group
      */
     private AnalyticsResponseDTO calculateAggregatedAnalyticsWithPipeline(List<Property> properties, 
                                                                            LocalDate startDate, LocalDate endDate,
                                                                            String managerId) {
         log.info("Using MongoDB aggregation pipeline for analytics calculation");
 
-        // Collect all room IDs
-        List<String> allRoomIds = properties.stream()
-                .filter(p -> p.getRooms() != null)
-                .flatMap(p -> p.getRooms().stream())
-                .map(Room::getId)
-                .collect(Collectors.toList());
+        boolean hasRooms = properties.stream()
+                .anyMatch(p -> p.getRooms() != null && !p.getRooms().isEmpty());
 
-        if (allRoomIds.isEmpty()) {
+        if (!hasRooms) {
             return AnalyticsResponseDTO.builder()
                     .propertyName("All Properties (Aggregated)")
                     .periodStart(startDate)
@@ -629,21 +533,23 @@ public class AnalyticsService {
                     .build();
         }
 
-        // Build aggregation pipeline
-        Criteria criteria = Criteria.where("roomId").in(allRoomIds);
+        // Build aggregation pipeline (manager_checkin_idx)
+        Criteria criteria = Criteria.where("managerId").is(managerId);
         if (startDate != null && endDate != null) {
             criteria = criteria.and("dates.checkIn").gte(startDate).lte(endDate);
         }
 
         MatchOperation matchStage = Aggregation.match(criteria);
 
+        // Both status spellings: the dataset stores them lowercase, the application uppercase
         GroupOperation groupStage = Aggregation.group()
                 .count().as("totalReservations")
-                .sum(ConditionalOperators.when(Criteria.where("status").is("CONFIRMED")).then(1).otherwise(0)).as("confirmed")
-                .sum(ConditionalOperators.when(Criteria.where("status").is("CANCELLED")).then(1).otherwise(0)).as("cancelled")
-                .sum(ConditionalOperators.when(Criteria.where("status").is("COMPLETED")).then(1).otherwise(0)).as("completed")
+                .sum(ConditionalOperators.when(Criteria.where("status").in("CONFIRMED", "confirmed")).then(1).otherwise(0)).as("confirmed")
+                .sum(ConditionalOperators.when(Criteria.where("status").in("CANCELLED", "cancelled")).then(1).otherwise(0)).as("cancelled")
+                .sum(ConditionalOperators.when(Criteria.where("status").in("COMPLETED", "completed")).then(1).otherwise(0)).as("completed")
                 .sum("adults").as("totalAdults")
-                .sum("children").as("totalChildren");
+                .sum("children").as("totalChildren")
+                .sum(ConditionalOperators.when(Criteria.where("status").in("CANCELLED", "cancelled")).then(0).otherwiseValueOf("totalPrice")).as("totalRevenue");
 
         Aggregation aggregation = Aggregation.newAggregation(matchStage, groupStage);
         
@@ -652,19 +558,13 @@ public class AnalyticsService {
 
         AggregatedResult result = results.getUniqueMappedResult();
 
-        // Calculate revenue (needs room price info, so done separately)
-        List<Reservation> allReservations = reservationRepository.findByRoomIdIn(allRoomIds);
-        if (startDate != null && endDate != null) {
-            allReservations = filterReservationsByDateRange(allReservations, startDate, endDate);
-        }
-        double totalRevenue = calculateTotalRevenue(allReservations, properties);
-
         long totalRes = result != null ? result.getTotalReservations() : 0;
         long confirmed = result != null ? result.getConfirmed() : 0;
         long cancelled = result != null ? result.getCancelled() : 0;
         long completed = result != null ? result.getCompleted() : 0;
         long totalAdults = result != null ? result.getTotalAdults() : 0;
         long totalChildren = result != null ? result.getTotalChildren() : 0;
+        double totalRevenue = result != null ? result.getTotalRevenue() : 0.0;
 
         return AnalyticsResponseDTO.builder()
                 .propertyName("All Properties (Aggregated)")
@@ -685,26 +585,6 @@ public class AnalyticsService {
 
     // HELPER CLASSES
 
-    private static class BasicStats {
-        long totalReservations;
-        long confirmedReservations;
-        long cancelledReservations;
-        long completedReservations;
-        double totalRevenue;
-        double avgRevenuePerReservation;
-        long totalNights;
-        long totalAdults;
-        long totalChildren;
-    }
-
-    private static class PropertyMetrics {
-        String propertyId;
-        double revenue;
-        double occupancy;
-        double rating;
-        double avgPrice;
-    }
-
     // DTO for MongoDB aggregation results
     @lombok.Data
     public static class AggregatedResult {
@@ -714,275 +594,53 @@ public class AnalyticsService {
         private long completed;
         private long totalAdults;
         private long totalChildren;
+        private double totalRevenue;
     }
 
     // HELPER METHODS
 
-    private BasicStats calculateBasicStats(List<Reservation> reservations, Property property) {
-        BasicStats stats = new BasicStats();
-        
-        stats.totalReservations = reservations.size();
-        stats.confirmedReservations = reservations.stream()
-                .filter(r -> "CONFIRMED".equalsIgnoreCase(r.getStatus())).count();
-        stats.cancelledReservations = reservations.stream()
-                .filter(r -> "CANCELLED".equalsIgnoreCase(r.getStatus())).count();
-        stats.completedReservations = reservations.stream()
-                .filter(r -> "COMPLETED".equalsIgnoreCase(r.getStatus())).count();
-
-        for (Reservation res : reservations) {
-            if ("CANCELLED".equalsIgnoreCase(res.getStatus())) continue;
-
-            Room room = findRoomById(property, res.getRoomId());
-            if (room != null && res.getDates() != null) {
-                long nights = ChronoUnit.DAYS.between(res.getDates().getCheckIn(), res.getDates().getCheckOut());
-                if (nights < 1) nights = 1;
-                stats.totalNights += nights;
-
-                double priceAdults = room.getPricePerNightAdults() != null ? room.getPricePerNightAdults() : 0.0;
-                double priceChildren = room.getPricePerNightChildren() != null ? room.getPricePerNightChildren() : 0.0;
-                stats.totalRevenue += (res.getAdults() * priceAdults + res.getChildren() * priceChildren) * nights;
-            }
-
-            stats.totalAdults += res.getAdults();
-            stats.totalChildren += res.getChildren();
-        }
-
-        long nonCancelled = stats.totalReservations - stats.cancelledReservations;
-        stats.avgRevenuePerReservation = nonCancelled > 0 ? 
-                roundToTwoDecimals(stats.totalRevenue / nonCancelled) : 0;
-
-        return stats;
-    }
-
-    private List<Reservation> filterReservationsByDateRange(List<Reservation> reservations, 
-                                                             LocalDate startDate, LocalDate endDate) {
-        return reservations.stream()
-                .filter(r -> r.getDates() != null)
-                .filter(r -> !r.getDates().getCheckIn().isBefore(startDate) && 
-                             !r.getDates().getCheckOut().isAfter(endDate.plusDays(1)))
-                .collect(Collectors.toList());
-    }
-
-    private double calculateOccupancyRate(Property property, List<Reservation> reservations, 
-                                          LocalDate startDate, LocalDate endDate) {
-        if (property.getRooms() == null || property.getRooms().isEmpty()) return 0.0;
-        if (startDate == null || endDate == null) return 0.0;
-
-        int numRooms = property.getRooms().size();
-        long totalDays = ChronoUnit.DAYS.between(startDate, endDate);
-        if (totalDays <= 0) totalDays = 1;
+    /**
+     * Streams the property's reservations from a MongoDB cursor into a single-pass accumulator.
+     * When both dates are given, only reservations inside the range are read
+     * (checkIn >= start and checkOut <= end + 1 day).
+     */
+    private ReservationAccumulator accumulateReservations(Property property, LocalDate startDate, LocalDate endDate) {
+        ReservationAccumulator acc = new ReservationAccumulator(property, startDate, endDate);
 
-        long totalAvailableNights = numRooms * totalDays;
+        if (property.getRooms() == null || property.getRooms().isEmpty()) return acc;
 
-        long bookedNights = reservations.stream()
-                .filter(r -> !"CANCELLED".equalsIgnoreCase(r.getStatus()))
-                .filter(r -> r.getDates() != null)
-                .mapToLong(r -> {
-                    LocalDate checkIn = r.getDates().getCheckIn().isBefore(startDate) ? startDate : r.getDates().getCheckIn();
-                    LocalDate checkOut = r.getDates().getCheckOut().isAfter(endDate) ? endDate : r.getDates().getCheckOut();
-                    return ChronoUnit.DAYS.between(checkIn, checkOut);
-                })
-                .filter(d -> d > 0)
-                .sum();
+        Criteria criteria = Criteria.where("propertyId").is(property.getId());
+        if (startDate != null && endDate != null) {
+            criteria = criteria.and("dates.checkIn").gte(startDate)
+                    .and("dates.checkOut").lte(endDate.plusDays(1));
+        }
+        Query query = new Query(criteria);
+        query.fields().include("roomId", "status", "adults", "children", "dates", "totalPrice", "nights", "createdAt");
 
-        return totalAvailableNights > 0 ? (bookedNights * 100.0 / totalAvailableNights) : 0.0;
+        try (Stream<Reservation> reservations = mongoTemplate.stream(query, Reservation.class)) {
+            reservations.forEach(acc::accept);
+        }
+        return acc;
     }
 
-    private List<RoomAnalyticsDTO> calculateRoomAnalytics(Property property, List<Reservation> reservations,
-                                                           LocalDate startDate, LocalDate endDate) {
-        if (property.getRooms() == null) return new ArrayList<>();
-
+    private List<RoomAnalyticsDTO> buildRoomAnalytics(ReservationAccumulator acc, LocalDate startDate, LocalDate endDate) {
         long totalDays = (startDate != null && endDate != null) ? 
                 ChronoUnit.DAYS.between(startDate, endDate) : 365;
         if (totalDays <= 0) totalDays = 1;
 
-        final long finalTotalDays = totalDays;
-
-        return property.getRooms().stream().map(room -> {
-            List<Reservation> roomReservations = reservations.stream()
-                    .filter(r -> room.getId().equals(r.getRoomId()) && !"CANCELLED".equalsIgnoreCase(r.getStatus()))
-                    .collect(Collectors.toList());
-
-            double revenue = 0.0;
-            long bookedNights = 0;
-            
-            for (Reservation res : roomReservations) {
-                if (res.getDates() == null) continue;
-                
-                long nights = ChronoUnit.DAYS.between(res.getDates().getCheckIn(), res.getDates().getCheckOut());
-                if (nights < 1) nights = 1;
-                bookedNights += nights;
-                
-                double priceAdults = room.getPricePerNightAdults() != null ? room.getPricePerNightAdults() : 0.0;
-                double priceChildren = room.getPricePerNightChildren() != null ? room.getPricePerNightChildren() : 0.0;
-                revenue += (res.getAdults() * priceAdults + res.getChildren() * priceChildren) * nights;
-            }
-
-            double occupancy = finalTotalDays > 0 ? (bookedNights * 100.0 / finalTotalDays) : 0;
-
-            return RoomAnalyticsDTO.builder()
+        List<RoomAnalyticsDTO> roomAnalytics = new ArrayList<>();
+        List<Room> rooms = acc.getRooms();
+        for (int i = 0; i < rooms.size(); i++) {
+            Room room = rooms.get(i);
+            roomAnalytics.add(RoomAnalyticsDTO.builder()
                     .roomId(room.getId())
                     .roomName(room.getName())
-                    .reservationCount(roomReservations.size())
-                    .revenue(roundToTwoDecimals(revenue))
-                    .occupancyRate(roundToTwoDecimals(occupancy))
-                    .build();
-        }).collect(Collectors.toList());
-    }
-
-    private Map<String, MonthlyStatsDTO> calculateMonthlyBreakdown(List<Reservation> reservations, Property property) {
-        Map<String, MonthlyStatsDTO> breakdown = new TreeMap<>();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM");
-
-        for (Reservation res : reservations) {
-            if ("CANCELLED".equalsIgnoreCase(res.getStatus()) || res.getDates() == null) continue;
-
-            String month = res.getDates().getCheckIn().format(formatter);
-            
-            Room room = findRoomById(property, res.getRoomId());
-            final double resRevenue;
-            if (room != null) {
-                long nights = ChronoUnit.DAYS.between(res.getDates().getCheckIn(), res.getDates().getCheckOut());
-                if (nights < 1) nights = 1;
-                double priceAdults = room.getPricePerNightAdults() != null ? room.getPricePerNightAdults() : 0.0;
-                double priceChildren = room.getPricePerNightChildren() != null ? room.getPricePerNightChildren() : 0.0;
-                resRevenue = (res.getAdults() * priceAdults + res.getChildren() * priceChildren) * nights;
-            } else {
-                resRevenue = 0.0;
-            }
-
-            long guests = res.getAdults() + res.getChildren();
-
-            breakdown.merge(month, 
-                    MonthlyStatsDTO.builder()
-                            .reservations(1)
-                            .revenue(resRevenue)
-                            .guests(guests)
-                            .build(),
-                    (existing, newVal) -> MonthlyStatsDTO.builder()
-                            .reservations(existing.getReservations() + 1)
-                            .revenue(existing.getRevenue() + resRevenue)
-                            .guests(existing.getGuests() + guests)
-                            .build());
-        }
-
-        return breakdown;
-    }
-
-    private double calculateTotalRevenue(List<Reservation> reservations, List<Property> properties) {
-        double total = 0.0;
-        
-        for (Reservation res : reservations) {
-            if ("CANCELLED".equalsIgnoreCase(res.getStatus()) || res.getDates() == null) continue;
-
-            for (Property prop : properties) {
-                if (prop.getRooms() == null) continue;
-                
-                Room room = prop.getRooms().stream()
-                        .filter(r -> r.getId().equals(res.getRoomId()))
-                        .findFirst()
-                        .orElse(null);
-                
-                if (room != null) {
-                    long nights = ChronoUnit.DAYS.between(res.getDates().getCheckIn(), res.getDates().getCheckOut());
-                    if (nights < 1) nights = 1;
-                    double priceAdults = room.getPricePerNightAdults() != null ? room.getPricePerNightAdults() : 0.0;
-                    double priceChildren = room.getPricePerNightChildren() != null ? room.getPricePerNightChildren() : 0.0;
-                    total += (res.getAdults() * priceAdults + res.getChildren() * priceChildren) * nights;
-                    break;
-                }
-            }
-        }
-
-        return total;
-    }
-
-    private List<Property> findComparableProperties(Property property) {
-        // First try same city, then same region, then all
-        if (property.getCity() != null) {
-            List<Property> sameCity = propertyRepository.findAll().stream()
-                    .filter(p -> property.getCity().equalsIgnoreCase(p.getCity()))
-                    .collect(Collectors.toList());
-            if (sameCity.size() >= 3) return sameCity;
-        }
-        
-        if (property.getRegion() != null) {
-            List<Property> sameRegion = propertyRepository.findAll().stream()
-                    .filter(p -> property.getRegion().equalsIgnoreCase(p.getRegion()))
-                    .collect(Collectors.toList());
-            if (sameRegion.size() >= 3) return sameRegion;
+                    .reservationCount(acc.getRoomBookings(i))
+                    .revenue(roundToTwoDecimals(acc.getRoomRevenue(i)))
+                    .occupancyRate(roundToTwoDecimals(acc.getRoomNights(i) * 100.0 / totalDays))
+                    .build());
         }
-        
-        // Fall back to all properties
-        return propertyRepository.findAll();
-    }
-
-    private PropertyMetrics calculatePropertyMetrics(Property property) {
-        PropertyMetrics metrics = new PropertyMetrics();
-        metrics.propertyId = property.getId();
-
-        List<String> roomIds = getRoomIds(property);
-        List<Reservation> reservations = roomIds.isEmpty() ? 
-                new ArrayList<>() : reservationRepository.findByRoomIdIn(roomIds);
-
-        // Revenue (last 12 months)
-        LocalDate yearAgo = LocalDate.now().minusYears(1);
-        List<Reservation> yearReservations = reservations.stream()
-                .filter(r -> r.getDates() != null && !r.getDates().getCheckIn().isBefore(yearAgo))
-                .filter(r -> !"CANCELLED".equalsIgnoreCase(r.getStatus()))
-                .collect(Collectors.toList());
-
-        metrics.revenue = calculateRevenueForReservations(yearReservations, property);
-
-        // Occupancy
-        metrics.occupancy = calculateOccupancyRate(property, yearReservations, yearAgo, LocalDate.now());
-
-        // Rating
-        List<Review> reviews = reviewRepository.findByPropertyId(property.getId());
-        metrics.rating = reviews.stream()
-                .filter(r -> r.getRating() != null)
-                .mapToDouble(Review::getRating)
-                .average()
-                .orElse(0.0);
-
-        // Average price
-        if (property.getRooms() != null && !property.getRooms().isEmpty()) {
-            metrics.avgPrice = property.getRooms().stream()
-                    .filter(r -> r.getPricePerNightAdults() != null)
-                    .mapToDouble(Room::getPricePerNightAdults)
-                    .average()
-                    .orElse(0.0);
-        }
-
-        return metrics;
-    }
-
-    private double calculateRevenueForReservations(List<Reservation> reservations, Property property) {
-        double total = 0.0;
-        for (Reservation res : reservations) {
-            if (res.getDates() == null) continue;
-            
-            Room room = findRoomById(property, res.getRoomId());
-            if (room != null) {
-                long nights = ChronoUnit.DAYS.between(res.getDates().getCheckIn(), res.getDates().getCheckOut());
-                if (nights < 1) nights = 1;
-                double priceAdults = room.getPricePerNightAdults() != null ? room.getPricePerNightAdults() : 0.0;
-                double priceChildren = room.getPricePerNightChildren() != null ? room.getPricePerNightChildren() : 0.0;
-                total += (res.getAdults() * priceAdults + res.getChildren() * priceChildren) * nights;
-            }
-        }
-        return total;
-    }
-
-    private double calculatePercentile(double[] values, double value) {
-        if (values.length == 0) return 0;
-        
-        Arrays.sort(values);
-        int count = 0;
-        for (double v : values) {
-            if (v < value) count++;
-        }
-        return (count * 100.0) / values.length;
+        return roomAnalytics;
     }
 
     private String determinePricePositioning(double propertyPrice, double marketAvg) {
@@ -1018,14 +676,6 @@ public class AnalyticsService {
         return firstHalf > 0 ? ((secondHalf - firstHalf) / firstHalf) * 100 : 0;
     }
 
-    private String categorizeStayDuration(long nights) {
-        if (nights <= 2) return "1-2 nights";
-        if (nights <= 5) return "3-5 nights";
-        if (nights <= 7) return "6-7 nights";
-        if (nights <= 14) return "1-2 weeks";
-        return "2+ weeks";
-    }
-
     private List<String> identifyPeakMonths(Map<String, Long> monthlyData) {
         if (monthlyData.isEmpty()) return new ArrayList<>();
         
@@ -1050,74 +700,16 @@ public class AnalyticsService {
                 .collect(Collectors.toList());
     }
 
-    /**
-     * Calculates the most frequently booked room type
-     */
-    private String calculateMostBookedRoomType(List<Reservation> reservations, Property property) {
-        if (reservations.isEmpty() || property.getRooms() == null) {
-            return "N/A";
-        }
-
-        // Count bookings by room type
-        Map<String, Long> roomTypeCount = reservations.stream()
-                .filter(r -> !"CANCELLED".equalsIgnoreCase(r.getStatus()))
-                .map(r -> {
-                    Room room = findRoomById(property, r.getRoomId());
-                    return room != null ? room.getRoomType() : null;
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.groupingBy(type -> type, Collectors.counting()));
-
-        // Find the room type with max bookings
-        return roomTypeCount.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("N/A");
-    }
-
-    /**
-     * Calculates the average number of guests per room per booking
-     */
-    private double calculateAvgGuestsPerRoomPerBooking(List<Reservation> reservations) {
-        List<Reservation> validReservations = reservations.stream()
-                .filter(r -> !"CANCELLED".equalsIgnoreCase(r.getStatus()))
-                .collect(Collectors.toList());
-
-        if (validReservations.isEmpty()) {
-            return 0.0;
-        }
-
-        // Each reservation is for one room, so avg guests = total guests / total bookings
-        double totalGuests = validReservations.stream()
-                .mapToDouble(r -> r.getAdults() + r.getChildren())
-                .sum();
-
-        return totalGuests / validReservations.size();
-    }
-
-    private List<String> getRoomIds(Property property) {
-        return property.getRooms() != null 
-                ? property.getRooms().stream().map(Room::getId).collect(Collectors.toList())
-                : new ArrayList<>();
-    }
-
-    private Room findRoomById(Property property, String roomId) {
-        if (property.getRooms() == null) return null;
-        return property.getRooms().stream()
-                .filter(r -> r.getId().equals(roomId))
-                .findFirst()
-                .orElse(null);
-    }
-
     private double roundToTwoDecimals(double value) {
         return Math.round(value * 100.0) / 100.0;
     }
 
-    private RegisteredUser getManagerFromToken(String token) {
+    private UserIdentityDTO getManagerFromToken(String token) {
         String cleanToken = token.replace("Bearer ", "");
         String userId = jwtUtil.getUserIdFromToken(cleanToken);
         
-        RegisteredUser user = userRepository.findById(userId)
+        // Cached identity (see UserIdentityService): no MongoDB read per request
+        UserIdentityDTO user = Optional.ofNullable(userIdentityService.getIdentity(userId))
                 .orElseThrow(() -> {
                     log.error("User not found for token");
                     return new IllegalArgumentException("User not found");
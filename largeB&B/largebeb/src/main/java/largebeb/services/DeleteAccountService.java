@@ -19,6 +19,7 @@ public class DeleteAccountService {
     private final ReservationRepository reservationRepository; 
     private final UserGraphRepository userGraphRepository;
     private final JwtUtil jwtUtil;
+    private final UserIdentityService userIdentityService;
     
     @Transactional
     public void deleteAccount(String token) {
@@ -46,6 +47,9 @@ public class DeleteAccountService {
         // Delete the user from MongoDB
         userRepository.delete(user);
 
+        // Drop the cached identity on every node, so the filter stops authenticating this user
+        userIdentityService.evict(userId);
+
         // Delete user from Neo4j
         // We perform this after MongoDB deletion to ensure the main record is gone first.
         try {
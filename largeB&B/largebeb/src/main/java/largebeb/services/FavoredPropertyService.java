@@ -2,6 +2,7 @@ package largebeb.services;
 
 import largebeb.dto.FavoredPropertyRequestDTO;
 import largebeb.dto.FavoredPropertyResponseDTO;
+import largebeb.dto.PropertyResponseDTO;
 import largebeb.model.Customer;
 import largebeb.repository.PropertyRepository;
 import largebeb.model.RegisteredUser;
@@ -10,6 +11,7 @@ import largebeb.utilities.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,6 +22,7 @@ public class FavoredPropertyService {
     private final UserRepository userRepository;
     private final PropertyRepository propertyRepository;
     private final JwtUtil jwtUtil;
+    private final PropertySummaryService propertySummaryService;
 
     // Get favored properties
     public FavoredPropertyResponseDTO getFavoredProperties(String token) {
@@ -33,6 +36,17 @@ public class FavoredPropertyService {
         return new FavoredPropertyResponseDTO(favorites);
     }
 
+    // Get favored properties as summary cards (one Redis round trip when cached)
+    public List<PropertyResponseDTO> getFavoredPropertyCards(String token) {
+        Customer customer = getCustomerFromToken(token);
+
+        Set<String> favorites = customer.getFavoredPropertyIds();
+        if (favorites == null || favorites.isEmpty()) {
+            return List.of();
+        }
+        return propertySummaryService.getSummaries(favorites);
+    }
+
     // Add favored property
     @Transactional
     public FavoredPropertyResponseDTO addFavoredProperty(String token, FavoredPropertyRequestDTO request) {
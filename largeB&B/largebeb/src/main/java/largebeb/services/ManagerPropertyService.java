@@ -3,20 +3,26 @@ package largebeb.services;
 import largebeb.dto.*;
 import largebeb.model.Property;
 import largebeb.model.PointOfInterest;
-import largebeb.model.RegisteredUser;
 import largebeb.model.Reservation;
 import largebeb.model.Room;
 import largebeb.model.graph.PropertyNode;
 import largebeb.repository.PropertyGraphRepository; 
 import largebeb.repository.PropertyRepository;
 import largebeb.repository.ReservationRepository;
-import largebeb.repository.UserRepository;
 import largebeb.utilities.JwtUtil;
 import largebeb.utilities.RatingStats;
+import largebeb.utilities.SearchKeys;
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,6 +30,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,16 +42,21 @@ public class ManagerPropertyService {
     private final PropertyRepository propertyRepository;      // MongoDB
     private final PropertyGraphRepository propertyGraphRepository; // Neo4j
     private final ReservationRepository reservationRepository;
-    private final UserRepository userRepository;
+    private final UserIdentityService userIdentityService;
     private final JwtUtil jwtUtil;
     private final Neo4jClient neo4jClient; // Client to execute custom Cypher queries
+    private final MongoTemplate mongoTemplate; // Targeted updates of embedded rooms
+    private final PropertySummaryService propertySummaryService; // List cards, evicted on every write
+
+    // Path of the room matched by the "r" array filter
+    private static final String ROOM_FIELD = "rooms.$[r].";
 
     /**
      * Add a new property (Manager only)
      */
     @Transactional // for multi-db operations
     public PropertyResponseDTO addProperty(String token, PropertyRequestDTO request) {
-        RegisteredUser manager = getManagerFromToken(token);
+        UserIdentityDTO manager = getManagerFromToken(token);
 
         Property property = new Property();
         property.setName(request.getName());
@@ -60,6 +72,7 @@ public class ManagerPropertyService {
         property.setRooms(new ArrayList<>());
         property.setLatestReviews(new ArrayList<>());
         property.setPois(new ArrayList<>());
+        SearchKeys.refresh(property);
         
         // Initialize rating stats
         RatingStats stats = new RatingStats();
@@ -67,6 +80,14 @@ public class ManagerPropertyService {
         stats.setCommunication(0.0);
         stats.setLocation(0.0);
         stats.setValue(0.0);
+        stats.setAverageRating(0.0);
+        stats.setTotalReviews(0L);
+        stats.setRatingSum(0.0);
+        stats.setCleanlinessSum(0.0);
+        stats.setCommunicationSum(0.0);
+        stats.setLocationSum(0.0);
+        stats.setValueSum(0.0);
+        stats.setSumsBackfilled(true); // No reviews yet: the zero sums are exact
         property.setRatingStats(stats);
 
         // Handle coordinates (input: [lat, lon] -> stored as GeoJsonPoint [lon, lat] for MongoDB)
@@ -123,8 +144,9 @@ public class ManagerPropertyService {
      * Delete a property (Manager only - must own the property)
      */
     @Transactional
+    @CacheEvict(value = "properties", key = "#propertyId")
     public void deleteProperty(String token, String propertyId) {
-        RegisteredUser manager = getManagerFromToken(token);
+        UserIdentityDTO manager = getManagerFromToken(token);
         
         Property property = propertyRepository.findById(propertyId)
                 .orElseThrow(() -> new IllegalArgumentException("Property not found with id: " + propertyId));
@@ -134,25 +156,21 @@ public class ManagerPropertyService {
             throw new SecurityException("You can only delete your own properties.");
         }
 
-        // Check for active reservations
+        // Check for active reservations (counted by MongoDB on property_status_checkin_idx)
         if (property.getRooms() != null && !property.getRooms().isEmpty()) {
-            List<String> roomIds = property.getRooms().stream()
-                    .map(Room::getId)
-                    .collect(Collectors.toList());
+            long activeReservations = mongoTemplate.count(new Query(Criteria.where("propertyId").is(propertyId)
+                    .and("status").in("CONFIRMED", "confirmed")
+                    .and("dates.checkOut").gt(LocalDate.now())), Reservation.class);
             
-            List<Reservation> activeReservations = reservationRepository.findByRoomIdIn(roomIds).stream()
-                    .filter(r -> "CONFIRMED".equalsIgnoreCase(r.getStatus()) && 
-                                 r.getDates().getCheckOut().isAfter(LocalDate.now()))
-                    .collect(Collectors.toList());
-            
-            if (!activeReservations.isEmpty()) {
-                throw new IllegalStateException("Cannot delete property with " + activeReservations.size() + 
+            if (activeReservations > 0) {
+                throw new IllegalStateException("Cannot delete property with " + activeReservations + 
                         " active reservations. Please cancel them first.");
             }
         }
 
         // Delete from MongoDB (Transactional - CP)
         propertyRepository.delete(property);
+        propertySummaryService.evict(propertyId);
 
         // Async delete from Neo4j (Eventual Consistency - AP)
         final String finalPropertyId = propertyId;
@@ -190,8 +208,9 @@ public class ManagerPropertyService {
      * Modify property information (Manager only - must own the property)
      */
     @Transactional
+    @CacheEvict(value = "properties", key = "#propertyId")
     public PropertyResponseDTO modifyProperty(String token, String propertyId, PropertyRequestDTO request) {
-        RegisteredUser manager = getManagerFromToken(token);
+        UserIdentityDTO manager = getManagerFromToken(token);
         
         Property property = propertyRepository.findById(propertyId)
                 .orElseThrow(() -> new IllegalArgumentException("Property not found with id: " + propertyId));
@@ -234,8 +253,17 @@ public class ManagerPropertyService {
             property.setLocation(new GeoJsonPoint(lon, lat));
         }
 
-        // Save to MongoDB
-        Property saved = propertyRepository.save(property);
+        // Keep the normalized search keys aligned with city/amenities
+        SearchKeys.refresh(property);
+
+        // Save to MongoDB (fails if the document changed since it was read)
+        Property saved;
+        try {
+            saved = propertyRepository.save(property);
+        } catch (OptimisticLockingFailureException e) {
+            throw new IllegalStateException("The property was modified by another request, please retry.");
+        }
+        propertySummaryService.evict(propertyId);
 
         // Update Neo4j
         try {
@@ -292,7 +320,7 @@ public class ManagerPropertyService {
      * Get all properties owned by the manager
      */
     public List<PropertyResponseDTO> getMyProperties(String token) {
-        RegisteredUser manager = getManagerFromToken(token);
+        UserIdentityDTO manager = getManagerFromToken(token);
         
         return propertyRepository.findByManagerId(manager.getId()).stream()
                 .map(this::mapPropertyToDTO)
@@ -302,11 +330,11 @@ public class ManagerPropertyService {
     /**
      * Add a room to a property
      */
+    @CacheEvict(value = "properties", key = "#propertyId")
     public RoomResponseDTO addRoom(String token, String propertyId, RoomRequestDTO request) {
-        RegisteredUser manager = getManagerFromToken(token);
+        UserIdentityDTO manager = getManagerFromToken(token);
         
-        Property property = propertyRepository.findById(propertyId)
-                .orElseThrow(() -> new IllegalArgumentException("Property not found with id: " + propertyId));
+        Property property = findPropertyWithRoom(propertyId, null);
 
         // Verify ownership
         if (!property.getManagerId().equals(manager.getId())) {
@@ -329,36 +357,31 @@ public class ManagerPropertyService {
         room.setCapacityChildren(request.getCapacityChildren());
         room.setPricePerNightAdults(request.getPricePerNightAdults());
         room.setPricePerNightChildren(request.getPricePerNightChildren());
+        SearchKeys.refresh(room);
 
-        // Add room to property's room list
-        if (property.getRooms() == null) {
-            property.setRooms(new ArrayList<>());
-        }
-        property.getRooms().add(room);
-        
-        propertyRepository.save(property);
+        // Append the room to the embedded list ($push, the rest of the document is untouched)
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(propertyId)),
+                new Update().push("rooms", room).inc("version", 1), Property.class);
+        propertySummaryService.evict(propertyId);
         return mapRoomToDTO(room, propertyId);
     }
 
     /**
      * Delete a room from a property
      */
+    @CacheEvict(value = "properties", key = "#propertyId")
     public void deleteRoom(String token, String propertyId, String roomId) {
-        RegisteredUser manager = getManagerFromToken(token);
+        UserIdentityDTO manager = getManagerFromToken(token);
         
-        Property property = propertyRepository.findById(propertyId)
-                .orElseThrow(() -> new IllegalArgumentException("Property not found with id: " + propertyId));
+        Property property = findPropertyWithRoom(propertyId, roomId);
 
         // Verify ownership
         if (!property.getManagerId().equals(manager.getId())) {
             throw new SecurityException("You can only delete rooms from your own properties.");
         }
 
-        // Find the room
-        Room roomToDelete = property.getRooms().stream()
-                .filter(r -> r.getId().equals(roomId))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Room not found with id: " + roomId));
+        // Verify the room exists
+        getOnlyRoom(property, roomId);
 
         // Check for active reservations
         List<Reservation> activeReservations = reservationRepository.findByRoomId(roomId).stream()
@@ -371,44 +394,54 @@ public class ManagerPropertyService {
                     " active reservations. Please cancel them first.");
         }
 
-        // Remove room from property
-        property.getRooms().remove(roomToDelete);
-        propertyRepository.save(property);
+        // Remove room from property ($pull of the single element)
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(propertyId)),
+                new Update().pull("rooms", new Document("roomId", roomId)).inc("version", 1), Property.class);
+        propertySummaryService.evict(propertyId);
     }
 
     /**
      * Modify room information (Manager only)
      */
+    @CacheEvict(value = "properties", key = "#propertyId")
     public RoomResponseDTO modifyRoom(String token, String propertyId, String roomId, RoomRequestDTO request) {
-        RegisteredUser manager = getManagerFromToken(token);
+        UserIdentityDTO manager = getManagerFromToken(token);
         
-        Property property = propertyRepository.findById(propertyId)
-                .orElseThrow(() -> new IllegalArgumentException("Property not found with id: " + propertyId));
+        Property property = findPropertyWithRoom(propertyId, roomId);
 
         // Verify ownership
         if (!property.getManagerId().equals(manager.getId())) {
             throw new SecurityException("You can only modify rooms in your own properties.");
         }
 
-        // Find the room
-        Room room = property.getRooms().stream()
-                .filter(r -> r.getId().equals(roomId))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Room not found with id: " + roomId));
-
-        // Update fields (only if provided)
-        if (request.getName() != null) room.setName(request.getName());
-        if (request.getRoomType() != null) room.setRoomType(request.getRoomType());
-        if (request.getNumBeds() != null) room.setNumBeds(request.getNumBeds());
-        if (request.getAmenities() != null) room.setAmenities(request.getAmenities());
-        if (request.getPhotos() != null) room.setPhotos(request.getPhotos());
-        if (request.getStatus() != null) room.setStatus(request.getStatus());
-        if (request.getCapacityAdults() != null) room.setCapacityAdults(request.getCapacityAdults());
-        if (request.getCapacityChildren() != null) room.setCapacityChildren(request.getCapacityChildren());
-        if (request.getPricePerNightAdults() != null) room.setPricePerNightAdults(request.getPricePerNightAdults());
-        if (request.getPricePerNightChildren() != null) room.setPricePerNightChildren(request.getPricePerNightChildren());
-
-        propertyRepository.save(property);
+        Room room = getOnlyRoom(property, roomId);
+
+        // Update fields (only if provided), only these are $set on the matched room
+        Update update = new Update();
+        setRoomField(update, "name", request.getName(), room::setName);
+        setRoomField(update, "roomType", request.getRoomType(), room::setRoomType);
+        setRoomField(update, "beds", request.getNumBeds(), room::setNumBeds);
+        setRoomField(update, "amenities", request.getAmenities(), room::setAmenities);
+        setRoomField(update, "photos", request.getPhotos(), room::setPhotos);
+        setRoomField(update, "status", request.getStatus(), room::setStatus);
+        setRoomField(update, "capacityAdults", request.getCapacityAdults(), room::setCapacityAdults);
+        setRoomField(update, "capacityChildren", request.getCapacityChildren(), room::setCapacityChildren);
+        setRoomField(update, "pricePerNightAdults", request.getPricePerNightAdults(), room::setPricePerNightAdults);
+        setRoomField(update, "pricePerNightChildren", request.getPricePerNightChildren(), room::setPricePerNightChildren);
+        SearchKeys.refresh(room);
+        update.set(ROOM_FIELD + "roomTypeKey", room.getRoomTypeKey())
+                .set(ROOM_FIELD + "amenityKeys", room.getAmenityKeys())
+                .inc("version", 1)
+                .filterArray("r.roomId", roomId);
+
+        // Other rooms and concurrent edits of other fields are left untouched
+        long matched = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(propertyId).and("rooms.roomId").is(roomId)),
+                update, Property.class).getMatchedCount();
+        if (matched == 0) {
+            throw new IllegalArgumentException("Room not found with id: " + roomId);
+        }
+        propertySummaryService.evict(propertyId);
         return mapRoomToDTO(room, propertyId);
     }
 
@@ -416,7 +449,7 @@ public class ManagerPropertyService {
      * Get all rooms for a property
      */
     public List<RoomResponseDTO> getRooms(String token, String propertyId) {
-        RegisteredUser manager = getManagerFromToken(token);
+        UserIdentityDTO manager = getManagerFromToken(token);
         
         Property property = propertyRepository.findById(propertyId)
                 .orElseThrow(() -> new IllegalArgumentException("Property not found with id: " + propertyId));
@@ -437,11 +470,40 @@ public class ManagerPropertyService {
 
     // HELPER METHODS
 
-    private RegisteredUser getManagerFromToken(String token) {
+    // Loads only the manager and, if roomId is given, that room (elemMatch projection)
+    private Property findPropertyWithRoom(String propertyId, String roomId) {
+        Query query = Query.query(Criteria.where("_id").is(propertyId));
+        query.fields().include("managerId");
+        if (roomId != null) {
+            query.fields().elemMatch("rooms", Criteria.where("roomId").is(roomId));
+        }
+        Property property = mongoTemplate.findOne(query, Property.class);
+        if (property == null) {
+            throw new IllegalArgumentException("Property not found with id: " + propertyId);
+        }
+        return property;
+    }
+
+    private Room getOnlyRoom(Property property, String roomId) {
+        if (property.getRooms() == null || property.getRooms().isEmpty()) {
+            throw new IllegalArgumentException("Room not found with id: " + roomId);
+        }
+        return property.getRooms().get(0);
+    }
+
+    // Applies a provided value to the room and adds its $set on the filtered array element
+    private <T> void setRoomField(Update update, String field, T value, Consumer<T> setter) {
+        if (value == null) return;
+        setter.accept(value);
+        update.set(ROOM_FIELD + field, value);
+    }
+
+    private UserIdentityDTO getManagerFromToken(String token) {
         String cleanToken = token.replace("Bearer ", "");
         String userId = jwtUtil.getUserIdFromToken(cleanToken);
         
-        RegisteredUser user = userRepository.findById(userId)
+        // Cached identity (see UserIdentityService): no MongoDB read per request
+        UserIdentityDTO user = Optional.ofNullable(userIdentityService.getIdentity(userId))
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
         if (!"MANAGER".equalsIgnoreCase(user.getRole())) {
@@ -6,26 +6,47 @@ import largebeb.model.RegisteredUser;
 import largebeb.model.Reservation;
 import largebeb.model.Room;
 import largebeb.repository.PropertyRepository;
-import largebeb.repository.ReservationRepository;
-import largebeb.repository.UserRepository;
 import largebeb.utilities.JwtUtil;
+import largebeb.utilities.MongoIds;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ManagerReservationService {
 
+    // Dashboard views page size (default and upper bound)
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // The dataset stores lowercase statuses, the application uppercase ones
+    private static final List<String> CONFIRMED = List.of("CONFIRMED", "confirmed");
+
     private final PropertyRepository propertyRepository;
-    private final ReservationRepository reservationRepository;
-    private final UserRepository userRepository;
+    private final UserIdentityService userIdentityService;
+    private final MongoTemplate mongoTemplate;
     private final JwtUtil jwtUtil;
 
     /**
@@ -33,7 +54,7 @@ public class ManagerReservationService {
      * Supports optional date filtering
      */
     public List<ManagerReservationDTO> getAllMyReservations(String token, LocalDate startDate, LocalDate endDate) {
-        RegisteredUser manager = getManagerFromToken(token);
+        UserIdentityDTO manager = getManagerFromToken(token);
         
         // Get all properties owned by this manager
         List<Property> myProperties = propertyRepository.findByManagerId(manager.getId());
@@ -42,24 +63,12 @@ public class ManagerReservationService {
             return new ArrayList<>();
         }
 
-        // Collect all room IDs from all properties
-        List<String> allRoomIds = myProperties.stream()
-                .filter(p -> p.getRooms() != null)
-                .flatMap(p -> p.getRooms().stream())
-                .map(Room::getId)
-                .collect(Collectors.toList());
+        // Get the manager's reservations in the date range (manager_checkin_idx)
+        List<Reservation> reservations = mongoTemplate.find(
+                new Query(dateRangeCriteria(Criteria.where("managerId").is(manager.getId()), startDate, endDate)),
+                Reservation.class);
 
-        if (allRoomIds.isEmpty()) {
-            return new ArrayList<>();
-        }
-
-        // Get all reservations for these rooms
-        List<Reservation> allReservations = reservationRepository.findByRoomIdIn(allRoomIds);
-
-        // Apply date filtering if provided
-        return allReservations.stream()
-                .filter(res -> filterByDateRange(res, startDate, endDate))
-                .map(res -> mapToManagerReservationDTO(res, myProperties))
+        return mapToManagerReservationDTOs(reservations, myProperties).stream()
                 .sorted(Comparator.comparing(ManagerReservationDTO::getCreatedAt).reversed())
                 .collect(Collectors.toList());
     }
@@ -70,7 +79,7 @@ public class ManagerReservationService {
      */
     public List<ManagerReservationDTO> getPropertyReservations(String token, String propertyId, 
                                                                 LocalDate startDate, LocalDate endDate) {
-        RegisteredUser manager = getManagerFromToken(token);
+        UserIdentityDTO manager = getManagerFromToken(token);
         
         Property property = propertyRepository.findById(propertyId)
                 .orElseThrow(() -> new IllegalArgumentException("Property not found with id: " + propertyId));
@@ -84,89 +93,79 @@ public class ManagerReservationService {
             return new ArrayList<>();
         }
 
-        // Get room IDs for this property
-        List<String> roomIds = property.getRooms().stream()
-                .map(Room::getId)
-                .collect(Collectors.toList());
-
-        // Get reservations
-        List<Reservation> reservations = reservationRepository.findByRoomIdIn(roomIds);
+        // Get reservations in the date range (filtered by MongoDB)
+        List<Reservation> reservations = mongoTemplate.find(
+                new Query(dateRangeCriteria(Criteria.where("propertyId").is(propertyId), startDate, endDate)),
+                Reservation.class);
 
-        return reservations.stream()
-                .filter(res -> filterByDateRange(res, startDate, endDate))
-                .map(res -> mapToManagerReservationDTO(res, List.of(property)))
+        return mapToManagerReservationDTOs(reservations, List.of(property)).stream()
                 .sorted(Comparator.comparing(ManagerReservationDTO::getCreatedAt).reversed())
                 .collect(Collectors.toList());
     }
 
     /**
-     * Filter reservation by date range
-     * @param res The reservation to check
+     * Date range filter on the reservations selected by owner (managerId or propertyId)
      * @param startDate If provided, reservation checkIn must be >= startDate
      * @param endDate If provided, reservation checkOut must be <= endDate
      */
-    private boolean filterByDateRange(Reservation res, LocalDate startDate, LocalDate endDate) {
-        if (res.getDates() == null) {
-            return false;
-        }
-        if (startDate != null && res.getDates().getCheckIn() != null 
-                && res.getDates().getCheckIn().isBefore(startDate)) {
-            return false;
+    private Criteria dateRangeCriteria(Criteria owner, LocalDate startDate, LocalDate endDate) {
+        Criteria criteria = owner.and("dates").ne(null);
+        if (startDate != null) {
+            criteria.and("dates.checkIn").gte(startDate);
         }
-        if (endDate != null && res.getDates().getCheckOut() != null 
-                && res.getDates().getCheckOut().isAfter(endDate)) {
-            return false;
+        if (endDate != null) {
+            criteria.and("dates.checkOut").lte(endDate);
         }
-        return true;
+        return criteria;
     }
 
     /**
-     * Get reservations filtered by status (uses overloaded method with null dates)
+     * Get reservations filtered by status, most recent first (paginated)
      */
-    public List<ManagerReservationDTO> getReservationsByStatus(String token, String status) {
-        List<ManagerReservationDTO> allReservations = getAllMyReservations(token, null, null);
-        
-        return allReservations.stream()
-                .filter(r -> status.equalsIgnoreCase(r.getStatus()))
-                .collect(Collectors.toList());
+    public SearchPageDTO<ManagerReservationDTO> getReservationsByStatus(String token, String status, String cursor, Integer size) {
+        return findReservationsPage(getManagerFromToken(token),
+                Criteria.where("status").in(status.trim().toUpperCase(), status.trim().toLowerCase()), false, cursor, size);
     }
 
     /**
-     * Get upcoming reservations (check-in date in the future)
+     * Get upcoming reservations (check-in date in the future), soonest first (paginated)
      */
-    public List<ManagerReservationDTO> getUpcomingReservations(String token) {
-        List<ManagerReservationDTO> allReservations = getAllMyReservations(token, null, null);
-        LocalDate today = LocalDate.now();
-        
-        return allReservations.stream()
-                .filter(r -> r.getCheckIn().isAfter(today) && "CONFIRMED".equalsIgnoreCase(r.getStatus()))
-                .sorted(Comparator.comparing(ManagerReservationDTO::getCheckIn))
-                .collect(Collectors.toList());
+    public SearchPageDTO<ManagerReservationDTO> getUpcomingReservations(String token, String cursor, Integer size) {
+        return findReservationsPage(getManagerFromToken(token),
+                Criteria.where("status").in(CONFIRMED).and("dates.checkIn").gt(LocalDate.now()), true, cursor, size);
     }
 
     /**
-     * Get current reservations (ongoing stays)
+     * Get current reservations (ongoing stays), by check-in (paginated)
      */
-    public List<ManagerReservationDTO> getCurrentReservations(String token) {
-        List<ManagerReservationDTO> allReservations = getAllMyReservations(token, null, null);
+    public SearchPageDTO<ManagerReservationDTO> getCurrentReservations(String token, String cursor, Integer size) {
         LocalDate today = LocalDate.now();
-        
-        return allReservations.stream()
-                .filter(r -> !r.getCheckIn().isAfter(today) && !r.getCheckOut().isBefore(today) 
-                             && "CONFIRMED".equalsIgnoreCase(r.getStatus()))
-                .collect(Collectors.toList());
+        return findReservationsPage(getManagerFromToken(token),
+                Criteria.where("status").in(CONFIRMED).and("dates.checkIn").lte(today).and("dates.checkOut").gte(today),
+                true, cursor, size);
+    }
+
+    /**
+     * Get arrivals of a day (confirmed reservations checking in on that date, default today)
+     */
+    public SearchPageDTO<ManagerReservationDTO> getArrivals(String token, LocalDate date, String cursor, Integer size) {
+        LocalDate day = date != null ? date : LocalDate.now();
+        return findReservationsPage(getManagerFromToken(token),
+                Criteria.where("status").in(CONFIRMED).and("dates.checkIn").is(day), true, cursor, size);
     }
 
     /**
      * Get payment status for all rooms in manager's properties
      */
     public List<RoomPaymentStatusDTO> getPaymentStatus(String token) {
-        RegisteredUser manager = getManagerFromToken(token);
+        UserIdentityDTO manager = getManagerFromToken(token);
         
         List<Property> myProperties = propertyRepository.findByManagerId(manager.getId());
 
+        // One aggregation for the rooms of all the properties
+        Map<String, RoomPaymentStats> stats = aggregatePaymentStats(myProperties);
         return myProperties.stream()
-                .map(this::buildPropertyPaymentStatus)
+                .map(property -> buildPropertyPaymentStatus(property, stats))
                 .collect(Collectors.toList());
     }
 
@@ -174,7 +173,7 @@ public class ManagerReservationService {
      * Get payment status for a specific property
      */
     public RoomPaymentStatusDTO getPropertyPaymentStatus(String token, String propertyId) {
-        RegisteredUser manager = getManagerFromToken(token);
+        UserIdentityDTO manager = getManagerFromToken(token);
         
         Property property = propertyRepository.findById(propertyId)
                 .orElseThrow(() -> new IllegalArgumentException("Property not found with id: " + propertyId));
@@ -184,43 +183,177 @@ public class ManagerReservationService {
             throw new SecurityException("You can only view payment status of your own properties.");
         }
 
-        return buildPropertyPaymentStatus(property);
+        return buildPropertyPaymentStatus(property, aggregatePaymentStats(List.of(property)));
     }
 
     // PRIVATE HELPER METHODS
 
-    private RoomPaymentStatusDTO buildPropertyPaymentStatus(Property property) {
+    /*
+     One page of the manager's reservations matching the filter, read straight from MongoDB
+     (indexes manager_status_checkin_idx / manager_status_created_idx): properties (projected), one page
+     of reservations, guests. Keyset pagination, one extra document tells whether a next page exists.
+     byCheckIn: order by check-in then _id, otherwise most recent first (createdAt then _id, descending).
+     The _id tiebreak goes through MongoIds: dataset ids are strings, application ids ObjectIds.
+    */
+    private SearchPageDTO<ManagerReservationDTO> findReservationsPage(UserIdentityDTO manager, Criteria filter,
+                                                                     boolean byCheckIn, String cursor, Integer size) {
+        Query propertyQuery = new Query(Criteria.where("managerId").is(manager.getId()));
+        propertyQuery.fields().include("name", "rooms.roomId", "rooms.name", "rooms.roomType",
+                "rooms.pricePerNightAdults", "rooms.pricePerNightChildren");
+        List<Property> myProperties = mongoTemplate.find(propertyQuery, Property.class);
+        if (myProperties.isEmpty()) {
+            return SearchPageDTO.<ManagerReservationDTO>builder().items(new ArrayList<>()).build();
+        }
+
+        int pageSize = resolvePageSize(size);
+        Query query = new Query(Criteria.where("managerId").is(manager.getId())).addCriteria(filter);
+        String[] last = decodeCursor(cursor);
+        if (byCheckIn) {
+            if (last != null) {
+                LocalDate lastCheckIn = parseCursorDate(last[0]);
+                query.addCriteria(new Criteria().orOperator(
+                        Criteria.where("dates.checkIn").gt(lastCheckIn),
+                        new Criteria().andOperator(
+                                Criteria.where("dates.checkIn").is(lastCheckIn),
+                                MongoIds.after(last[1]))));
+            }
+            query.with(Sort.by(Sort.Order.asc("dates.checkIn"), Sort.Order.asc("_id")));
+        } else {
+            if (last != null) {
+                LocalDateTime lastCreatedAt = parseCursorTime(last[0]);
+                query.addCriteria(new Criteria().orOperator(
+                        Criteria.where("createdAt").lt(lastCreatedAt),
+                        new Criteria().andOperator(
+                                Criteria.where("createdAt").is(lastCreatedAt),
+                                MongoIds.before(last[1]))));
+            }
+            query.with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id")));
+        }
+        query.limit(pageSize + 1);
+
+        List<Reservation> reservations = mongoTemplate.find(query, Reservation.class);
+        boolean hasMore = reservations.size() > pageSize;
+        if (hasMore) {
+            reservations = reservations.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Reservation lastRes = reservations.get(reservations.size() - 1);
+            nextCursor = encodeCursor(byCheckIn ? lastRes.getDates().getCheckIn().toString() : String.valueOf(lastRes.getCreatedAt()),
+                    lastRes.getId());
+        }
+        return SearchPageDTO.<ManagerReservationDTO>builder()
+                .items(mapToManagerReservationDTOs(reservations, myProperties))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null || size < 1) return DEFAULT_PAGE_SIZE;
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    // Cursors are "checkIn|lastId" or "createdAt|lastId" (by sort order), Base64 encoded so clients treat them as opaque
+    private String encodeCursor(String sortKey, String lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((sortKey + "|" + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+            if (parts.length != 2 || parts[1].isEmpty()) throw new IllegalArgumentException();
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid reservations cursor.");
+        }
+    }
+
+    private LocalDate parseCursorDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid reservations cursor.");
+        }
+    }
+
+    private LocalDateTime parseCursorTime(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid reservations cursor.");
+        }
+    }
+
+    // Current stay of a room, as picked by the payment status aggregation
+    private record CurrentStay(LocalDate checkIn, String id, String userId, LocalDate checkOut, String status) {}
+
+    // Per-room figures computed by MongoDB
+    private record RoomPaymentStats(String id, long upcoming, long completed,
+                                    double revenue, CurrentStay current) {}
+
+    /*
+     Payment figures of every room of the given properties in one $group over roomId:
+     upcoming (confirmed, check-in after today), completed, the revenue of completed
+     and confirmed stays (sum of their stored totalPrice) and one current stay
+     (not cancelled, today within check-in/check-out; $max over the matching stays).
+    */
+    private Map<String, RoomPaymentStats> aggregatePaymentStats(List<Property> properties) {
+        List<String> propertyIds = properties.stream()
+                .filter(p -> p.getRooms() != null && !p.getRooms().isEmpty())
+                .map(Property::getId)
+                .collect(Collectors.toList());
+        Map<String, RoomPaymentStats> stats = new HashMap<>();
+        if (propertyIds.isEmpty()) return stats;
+
+        // Same representation as the stored dates
+        Object today = mongoTemplate.getConverter().convertToMongoType(LocalDate.now());
+        Document checkIn = new Document("$gt", List.of("$dates.checkIn", today));
+        // Statuses compared case-insensitively: the dataset stores them lowercase, the application uppercase
+        Document status = new Document("$toUpper", "$status");
+        Document confirmed = new Document("$eq", List.of(status, "CONFIRMED"));
+        Document billed = new Document("$in", List.of(status, List.of("COMPLETED", "CONFIRMED")));
+        Document isCurrent = new Document("$and", List.of(
+                new Document("$lte", List.of("$dates.checkIn", today)),
+                new Document("$gte", List.of("$dates.checkOut", today)),
+                new Document("$ne", List.of(status, "CANCELLED"))));
+        Document currentStay = new Document("checkIn", "$dates.checkIn")
+                .append("_id", "$_id")
+                .append("userId", "$userId")
+                .append("checkOut", "$dates.checkOut")
+                .append("status", "$status");
+
+        AggregationOperation group = context -> new Document("$group", new Document("_id", "$roomId")
+                .append("upcoming", sumIf(new Document("$and", List.of(checkIn, confirmed)), 1))
+                .append("completed", sumIf(new Document("$eq", List.of(status, "COMPLETED")), 1))
+                .append("revenue", sumIf(billed, "$totalPrice"))
+                .append("current", new Document("$max", new Document("$cond", Arrays.asList(isCurrent, currentStay, null)))));
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("propertyId").in(propertyIds).and("dates").ne(null)),
+                group);
+        for (RoomPaymentStats roomStats : mongoTemplate.aggregate(aggregation, Reservation.class, RoomPaymentStats.class)) {
+            stats.put(roomStats.id(), roomStats);
+        }
+        return stats;
+    }
+
+    private static Document sumIf(Document condition, Object value) {
+        return new Document("$sum", new Document("$cond", List.of(condition, value, 0)));
+    }
+
+    private RoomPaymentStatusDTO buildPropertyPaymentStatus(Property property, Map<String, RoomPaymentStats> stats) {
         List<RoomPaymentStatusDTO.RoomStatusDetail> roomDetails = new ArrayList<>();
-        LocalDate today = LocalDate.now();
 
         if (property.getRooms() != null) {
             for (Room room : property.getRooms()) {
-                // Get all reservations for this room
-                List<Reservation> roomReservations = reservationRepository.findByRoomId(room.getId());
-
-                // Find current reservation (if any)
-                Reservation currentRes = roomReservations.stream()
-                        .filter(r -> !r.getDates().getCheckIn().isAfter(today) 
-                                     && !r.getDates().getCheckOut().isBefore(today)
-                                     && !"CANCELLED".equalsIgnoreCase(r.getStatus()))
-                        .findFirst()
-                        .orElse(null);
-
-                // Count upcoming reservations
-                long upcomingCount = roomReservations.stream()
-                        .filter(r -> r.getDates().getCheckIn().isAfter(today) 
-                                     && "CONFIRMED".equalsIgnoreCase(r.getStatus()))
-                        .count();
-
-                // Calculate total revenue from completed bookings
-                double totalRevenue = roomReservations.stream()
-                        .filter(r -> "COMPLETED".equalsIgnoreCase(r.getStatus()) || "CONFIRMED".equalsIgnoreCase(r.getStatus()))
-                        .mapToDouble(r -> calculateReservationPrice(r, room))
-                        .sum();
-
-                long completedCount = roomReservations.stream()
-                        .filter(r -> "COMPLETED".equalsIgnoreCase(r.getStatus()))
-                        .count();
+                RoomPaymentStats roomStats = stats.get(room.getId());
+                CurrentStay currentRes = roomStats != null ? roomStats.current() : null;
+
+                // Total revenue from completed and confirmed bookings
+                double totalRevenue = roomStats != null ? roomStats.revenue() : 0.0;
 
                 RoomPaymentStatusDTO.RoomStatusDetail detail = RoomPaymentStatusDTO.RoomStatusDetail.builder()
                         .roomId(room.getId())
@@ -228,14 +361,14 @@ public class ManagerReservationService {
                         .roomType(room.getRoomType())
                         .availabilityStatus(room.getStatus())
                         .currentlyOccupied(currentRes != null)
-                        .currentReservationId(currentRes != null ? currentRes.getId() : null)
-                        .currentGuestId(currentRes != null ? currentRes.getUserId() : null)
-                        .currentCheckIn(currentRes != null ? currentRes.getDates().getCheckIn() : null)
-                        .currentCheckOut(currentRes != null ? currentRes.getDates().getCheckOut() : null)
-                        .paymentStatus(currentRes != null ? currentRes.getStatus() : "NO_BOOKING")
-                        .upcomingReservations(upcomingCount)
+                        .currentReservationId(currentRes != null ? currentRes.id() : null)
+                        .currentGuestId(currentRes != null ? currentRes.userId() : null)
+                        .currentCheckIn(currentRes != null ? currentRes.checkIn() : null)
+                        .currentCheckOut(currentRes != null ? currentRes.checkOut() : null)
+                        .paymentStatus(currentRes != null ? currentRes.status() : "NO_BOOKING")
+                        .upcomingReservations(roomStats != null ? roomStats.upcoming() : 0)
                         .totalRevenueGenerated(Math.round(totalRevenue * 100.0) / 100.0)
-                        .totalCompletedBookings(completedCount)
+                        .totalCompletedBookings(roomStats != null ? roomStats.completed() : 0)
                         .build();
 
                 roomDetails.add(detail);
@@ -259,29 +392,54 @@ public class ManagerReservationService {
         return (res.getAdults() * priceAdults + res.getChildren() * priceChildren) * nights;
     }
 
-    private ManagerReservationDTO mapToManagerReservationDTO(Reservation res, List<Property> properties) {
-        // Find the property and room
-        Property property = null;
-        Room room = null;
-        
+    // Room of a reservation and the property it belongs to
+    private record RoomRef(Property property, Room room) {}
+
+    /*
+     Maps a batch of reservations with a constant number of queries:
+     rooms are resolved through a roomId -> (property, room) map built once from
+     the manager's properties, and guests are loaded with a single $in query.
+    */
+    private List<ManagerReservationDTO> mapToManagerReservationDTOs(List<Reservation> reservations, List<Property> properties) {
+        Map<String, RoomRef> rooms = new HashMap<>();
         for (Property p : properties) {
             if (p.getRooms() == null) continue;
-            
-            room = p.getRooms().stream()
-                    .filter(r -> r.getId().equals(res.getRoomId()))
-                    .findFirst()
-                    .orElse(null);
-            
-            if (room != null) {
-                property = p;
-                break;
+            for (Room r : p.getRooms()) {
+                rooms.putIfAbsent(r.getId(), new RoomRef(p, r));
             }
         }
 
+        Map<String, RegisteredUser> guests = findGuests(reservations.stream()
+                .map(Reservation::getUserId)
+                .distinct()
+                .collect(Collectors.toList()));
+
+        return reservations.stream()
+                .map(res -> mapToManagerReservationDTO(res, rooms.get(res.getRoomId()), guests.get(res.getUserId())))
+                .collect(Collectors.toList());
+    }
+
+    // Guests by id, projected to the fields shown to the manager
+    private Map<String, RegisteredUser> findGuests(List<String> userIds) {
+        Map<String, RegisteredUser> guests = new HashMap<>();
+        if (userIds.isEmpty()) return guests;
+
+        Query query = new Query(Criteria.where("_id").in(userIds));
+        // _class picks the concrete subtype (RegisteredUser is abstract)
+        query.fields().include("name", "surname", "username", "email", "_class");
+        for (RegisteredUser user : mongoTemplate.find(query, RegisteredUser.class)) {
+            guests.put(user.getId(), user);
+        }
+        return guests;
+    }
+
+    private ManagerReservationDTO mapToManagerReservationDTO(Reservation res, RoomRef roomRef, RegisteredUser guest) {
+        Property property = roomRef != null ? roomRef.property() : null;
+        Room room = roomRef != null ? roomRef.room() : null;
+
         // Get guest info
         String guestName = "Unknown";
         String guestEmail = "";
-        RegisteredUser guest = userRepository.findById(res.getUserId()).orElse(null);
         if (guest != null) {
             guestName = guest.getName() != null && guest.getSurname() != null 
                     ? guest.getName() + " " + guest.getSurname() 
@@ -289,9 +447,11 @@ public class ManagerReservationService {
             guestEmail = guest.getEmail();
         }
 
-        // Calculate price
+        // Amount charged at booking time (current room prices for reservations saved before it was stored)
         double totalPrice = 0.0;
-        if (room != null) {
+        if (res.getTotalPrice() != null) {
+            totalPrice = res.getTotalPrice();
+        } else if (room != null) {
             totalPrice = calculateReservationPrice(res, room);
         }
 
@@ -315,11 +475,12 @@ public class ManagerReservationService {
                 .build();
     }
 
-    private RegisteredUser getManagerFromToken(String token) {
+    private UserIdentityDTO getManagerFromToken(String token) {
         String cleanToken = token.replace("Bearer ", "");
         String userId = jwtUtil.getUserIdFromToken(cleanToken);
         
-        RegisteredUser user = userRepository.findById(userId)
+        // Cached identity (see UserIdentityService): no MongoDB read per request
+        UserIdentityDTO user = Optional.ofNullable(userIdentityService.getIdentity(userId))
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
         if (!"MANAGER".equalsIgnoreCase(user.getRole())) {
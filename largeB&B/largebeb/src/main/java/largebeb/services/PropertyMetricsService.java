@@ -0,0 +1,296 @@
+package largebeb.services;
+
+import largebeb.model.MarketBenchmark;
+import largebeb.model.Property;
+import largebeb.model.PropertyMetrics;
+import largebeb.model.Reservation;
+import largebeb.model.Room;
+import largebeb.repository.MarketBenchmarkRepository;
+import largebeb.repository.PropertyMetricsRepository;
+import largebeb.utilities.SearchKeys;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Materialized benchmarking data behind /analytics/benchmark.
+ *
+ * A nightly job computes, for every property, the 12-month revenue, occupancy,
+ * average rating and average price ("property_metrics"), then the market figures
+ * of every city, every region and of the whole catalogue ("market_benchmarks"),
+ * including the percentile breakpoints. A benchmark request then reads one
+ * metrics document and one benchmark document instead of loading every property
+ * with its reservations and reviews.
+ */
+@Service
+@RequiredArgsConstructor
+public class PropertyMetricsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PropertyMetricsService.class);
+
+    public static final String SCOPE_CITY = "CITY:";
+    public static final String SCOPE_REGION = "REGION:";
+    public static final String SCOPE_ALL = "ALL";
+
+    // Minimum size of a city or region market to be used as comparison group
+    public static final int MIN_MARKET_SIZE = 3;
+
+    // Markets up to this size keep every value, larger ones keep this many quantiles
+    private static final int MAX_BREAKPOINTS = 101;
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final PropertyMetricsRepository propertyMetricsRepository;
+    private final MarketBenchmarkRepository marketBenchmarkRepository;
+
+    // First start on an empty database: compute right away instead of waiting for the night.
+    // ApplicationReadyEvent comes after the StartupMigration backfills (reservation price and owner).
+    @EventListener(ApplicationReadyEvent.class)
+    public void initMetrics() {
+        if (marketBenchmarkRepository.count() == 0) {
+            refreshAllMetrics();
+        }
+    }
+
+    /*
+     Recomputes every property metrics document and every market benchmark.
+     Properties, the last year of reservations and the rating averages are each
+     read once (streamed / aggregated), writes go out in unordered bulk batches.
+    */
+    @Scheduled(cron = "${analytics.metrics.cron:0 30 3 * * *}")
+    public void refreshAllMetrics() {
+        LocalDateTime runStart = LocalDateTime.now();
+        try {
+            Query query = new Query();
+            query.fields().include("city", "region", "rooms.roomId", "rooms.pricePerNightAdults", "rooms.pricePerNightChildren");
+
+            List<PropertyMetrics> metrics;
+            try (Stream<Property> properties = mongoTemplate.stream(query, Property.class)) {
+                metrics = computeMetrics(properties, null, runStart);
+            }
+
+            saveMetrics(metrics);
+            mongoTemplate.remove(new Query(Criteria.where("computedAt").lt(runStart)), PropertyMetrics.class);
+
+            List<MarketBenchmark> benchmarks = buildBenchmarks(metrics, runStart);
+            marketBenchmarkRepository.saveAll(benchmarks);
+            mongoTemplate.remove(new Query(Criteria.where("computedAt").lt(runStart)), MarketBenchmark.class);
+
+            logger.info("Property metrics refreshed: {} properties, {} markets.", metrics.size(), benchmarks.size());
+        } catch (Exception e) {
+            logger.error("Property metrics refresh failed: {}", e.getMessage());
+        }
+    }
+
+    // Stored metrics of the property, computed on the fly if the job has not seen it yet
+    public PropertyMetrics getMetrics(Property property) {
+        return propertyMetricsRepository.findById(property.getId())
+                .orElseGet(() -> computeMetrics(Stream.of(property), property.getId(), LocalDateTime.now()).get(0));
+    }
+
+    // Comparison group of the property: its city, else its region, else the whole catalogue
+    public Optional<MarketBenchmark> findBenchmark(Property property) {
+        String cityKey = SearchKeys.city(property.getCity());
+        if (cityKey != null) {
+            Optional<MarketBenchmark> city = marketBenchmarkRepository.findById(SCOPE_CITY + cityKey);
+            if (city.isPresent() && city.get().getPropertyCount() >= MIN_MARKET_SIZE) return city;
+        }
+        String regionKey = SearchKeys.region(property.getRegion());
+        if (regionKey != null) {
+            Optional<MarketBenchmark> region = marketBenchmarkRepository.findById(SCOPE_REGION + regionKey);
+            if (region.isPresent() && region.get().getPropertyCount() >= MIN_MARKET_SIZE) return region;
+        }
+        return marketBenchmarkRepository.findById(SCOPE_ALL);
+    }
+
+    // Share of the market strictly below the value, in percent
+    public static double percentile(List<Double> breakpoints, double value) {
+        if (breakpoints == null || breakpoints.isEmpty()) return 0;
+        int low = 0;
+        int high = breakpoints.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (breakpoints.get(mid) < value) low = mid + 1;
+            else high = mid;
+        }
+        return (low * 100.0) / breakpoints.size();
+    }
+
+    // HELPER METHODS
+
+    /*
+     Metrics of the given properties (rooms with id and prices are enough).
+     propertyId restricts the reservation scan to one property; null reads the whole last year.
+    */
+    private List<PropertyMetrics> computeMetrics(Stream<Property> properties, String propertyId, LocalDateTime computedAt) {
+        LocalDate today = LocalDate.now();
+        LocalDate yearAgo = today.minusYears(1);
+
+        List<PropertyMetrics> metrics = new ArrayList<>();
+        List<Integer> roomCounts = new ArrayList<>();
+        Map<String, Integer> roomProperty = new HashMap<>();
+
+        for (Property property : (Iterable<Property>) properties::iterator) {
+            PropertyMetrics m = new PropertyMetrics();
+            m.setPropertyId(property.getId());
+            m.setCityKey(SearchKeys.city(property.getCity()));
+            m.setRegionKey(SearchKeys.region(property.getRegion()));
+            m.setComputedAt(computedAt);
+
+            List<Room> rooms = property.getRooms() != null ? property.getRooms() : List.of();
+            int index = metrics.size();
+            for (Room room : rooms) {
+                roomProperty.putIfAbsent(room.getId(), index);
+            }
+            m.setAvgPrice(rooms.stream()
+                    .filter(r -> r.getPricePerNightAdults() != null)
+                    .mapToDouble(Room::getPricePerNightAdults)
+                    .average()
+                    .orElse(0.0));
+
+            metrics.add(m);
+            roomCounts.add(rooms.size());
+        }
+        if (metrics.isEmpty()) return metrics;
+
+        // Revenue (stored totalPrice) and occupancy: one pass over the last year of reservations
+        double[] revenue = new double[metrics.size()];
+        long[] occupiedNights = new long[metrics.size()];
+
+        Criteria criteria = Criteria.where("status").nin("CANCELLED", "cancelled")
+                .and("dates.checkIn").gte(yearAgo);
+        if (propertyId != null) criteria = criteria.and("propertyId").is(propertyId);
+        Query query = new Query(criteria);
+        query.fields().include("roomId", "dates", "totalPrice");
+
+        try (Stream<Reservation> reservations = mongoTemplate.stream(query, Reservation.class)) {
+            for (Reservation res : (Iterable<Reservation>) reservations::iterator) {
+                Integer property = roomProperty.get(res.getRoomId());
+                if (property == null || res.getDates() == null) continue;
+                LocalDate checkIn = res.getDates().getCheckIn();
+                LocalDate checkOut = res.getDates().getCheckOut();
+                if (checkIn == null || checkOut == null) continue;
+
+                if (res.getTotalPrice() != null) revenue[property] += res.getTotalPrice();
+
+                LocalDate to = checkOut.isAfter(today) ? today : checkOut;
+                long inPeriod = ChronoUnit.DAYS.between(checkIn, to);
+                if (inPeriod > 0) occupiedNights[property] += inPeriod;
+            }
+        }
+
+        long days = Math.max(ChronoUnit.DAYS.between(yearAgo, today), 1);
+        for (int i = 0; i < metrics.size(); i++) {
+            metrics.get(i).setRevenue(revenue[i]);
+            int rooms = roomCounts.get(i);
+            metrics.get(i).setOccupancy(rooms > 0 ? occupiedNights[i] * 100.0 / (rooms * days) : 0.0);
+        }
+
+        // Rating: average per property computed by MongoDB
+        Map<String, Double> ratings = averageRatings(propertyId != null ? List.of(propertyId) : null);
+        for (PropertyMetrics m : metrics) {
+            m.setRating(ratings.getOrDefault(m.getPropertyId(), 0.0));
+        }
+        return metrics;
+    }
+
+    private Map<String, Double> averageRatings(List<String> propertyIds) {
+        Criteria criteria = Criteria.where("rating").ne(null);
+        if (propertyIds != null) criteria = criteria.and("propertyId").in(propertyIds);
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.group("propertyId").avg("rating").as("rating"));
+
+        Map<String, Double> ratings = new HashMap<>();
+        for (Document doc : mongoTemplate.aggregate(aggregation, "reviews", Document.class)) {
+            Object propertyId = doc.get("_id");
+            Number rating = doc.get("rating", Number.class);
+            if (propertyId != null && rating != null) ratings.put(propertyId.toString(), rating.doubleValue());
+        }
+        return ratings;
+    }
+
+    private void saveMetrics(List<PropertyMetrics> metrics) {
+        for (int from = 0; from < metrics.size(); from += BATCH_SIZE) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PropertyMetrics.class);
+            for (PropertyMetrics m : metrics.subList(from, Math.min(from + BATCH_SIZE, metrics.size()))) {
+                bulk.replaceOne(Query.query(Criteria.where("_id").is(m.getPropertyId())), m,
+                        FindAndReplaceOptions.options().upsert());
+            }
+            bulk.execute();
+        }
+    }
+
+    private List<MarketBenchmark> buildBenchmarks(List<PropertyMetrics> metrics, LocalDateTime computedAt) {
+        Map<String, List<PropertyMetrics>> markets = new HashMap<>();
+        markets.put(SCOPE_ALL, metrics);
+        for (PropertyMetrics m : metrics) {
+            if (m.getCityKey() != null) {
+                markets.computeIfAbsent(SCOPE_CITY + m.getCityKey(), k -> new ArrayList<>()).add(m);
+            }
+            if (m.getRegionKey() != null) {
+                markets.computeIfAbsent(SCOPE_REGION + m.getRegionKey(), k -> new ArrayList<>()).add(m);
+            }
+        }
+
+        List<MarketBenchmark> benchmarks = new ArrayList<>();
+        for (Map.Entry<String, List<PropertyMetrics>> market : markets.entrySet()) {
+            List<PropertyMetrics> members = market.getValue();
+            double[] revenues = members.stream().mapToDouble(PropertyMetrics::getRevenue).toArray();
+            double[] occupancies = members.stream().mapToDouble(PropertyMetrics::getOccupancy).toArray();
+            double[] ratings = members.stream().mapToDouble(PropertyMetrics::getRating).filter(r -> r > 0).toArray();
+
+            MarketBenchmark benchmark = new MarketBenchmark();
+            benchmark.setId(market.getKey());
+            benchmark.setPropertyCount(members.size());
+            benchmark.setAvgRevenue(Arrays.stream(revenues).average().orElse(0));
+            benchmark.setAvgOccupancy(Arrays.stream(occupancies).average().orElse(0));
+            benchmark.setAvgRating(Arrays.stream(ratings).average().orElse(0));
+            benchmark.setAvgPrice(members.stream().mapToDouble(PropertyMetrics::getAvgPrice)
+                    .filter(p -> p > 0).average().orElse(0));
+            benchmark.setRevenueBreakpoints(breakpoints(revenues));
+            benchmark.setOccupancyBreakpoints(breakpoints(occupancies));
+            benchmark.setRatingBreakpoints(breakpoints(ratings));
+            benchmark.setComputedAt(computedAt);
+            benchmarks.add(benchmark);
+        }
+        return benchmarks;
+    }
+
+    // Sorted values, or MAX_BREAKPOINTS evenly spaced quantiles of them
+    private static List<Double> breakpoints(double[] values) {
+        Arrays.sort(values);
+        List<Double> breakpoints = new ArrayList<>();
+        if (values.length <= MAX_BREAKPOINTS) {
+            for (double v : values) breakpoints.add(v);
+            return breakpoints;
+        }
+        for (int i = 0; i < MAX_BREAKPOINTS; i++) {
+            breakpoints.add(values[(int) ((long) i * (values.length - 1) / (MAX_BREAKPOINTS - 1))]);
+        }
+        return breakpoints;
+    }
+}
@@ -3,10 +3,13 @@ package largebeb.services;
 import largebeb.dto.PointOfInterestDTO;
 import largebeb.dto.PropertyResponseDTO;
 import largebeb.dto.RoomResponseDTO;
+import largebeb.dto.SearchPageDTO;
 import largebeb.model.Property;
 import largebeb.model.Room;
 import largebeb.model.PointOfInterest;
 import largebeb.repository.PropertyRepository;
+import largebeb.utilities.MongoIds;
+import largebeb.utilities.SearchKeys;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
@@ -18,8 +21,12 @@ import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,14 +37,27 @@ public class PropertyService {
     private final RedisTemplate<String, Object> redisTemplate;
     // ESSENTIAL INJECTION FOR DYNAMIC QUERIES
     private final MongoTemplate mongoTemplate; 
+    private final RoomAvailabilityService roomAvailabilityService;
+    private final TrendingService trendingService;
+    private final PropertySummaryService propertySummaryService;
 
-    // ADVANCED SEARCH (Fix Error 500 & Dirty Data)
-    public List<PropertyResponseDTO> searchProperties(String city, Double minPrice, Double maxPrice, List<String> amenities) {
+    // Search page size (default and upper bound)
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * ADVANCED SEARCH (Fix Error 500 & Dirty Data)
+     * Keyset pagination on _id: pass back nextCursor to get the following page.
+     */
+    public SearchPageDTO<PropertyResponseDTO> searchProperties(String city, Double minPrice, Double maxPrice, List<String> amenities,
+                                                               LocalDate checkIn, LocalDate checkOut,
+                                                               String cursor, Integer size) {
         Query query = new Query();
 
-        // City Filter (Case Insensitive: Rome == rome)
-        if (city != null && !city.trim().isEmpty()) {
-            query.addCriteria(Criteria.where("city").regex(city, "i"));
+        // City Filter (normalized key: Rome == rome, index seek on city_search_idx)
+        String cityKey = SearchKeys.city(city);
+        if (cityKey != null) {
+            query.addCriteria(Criteria.where("cityKey").is(cityKey));
         }
 
         // Price Filter (Search in internal rooms)
@@ -50,19 +70,56 @@ public class PropertyService {
             query.addCriteria(Criteria.where("rooms").elemMatch(priceCriteria));
         }
 
-        // "Dirty" Amenities Filter (Uses Regex to ignore quotes/parentheses in DB)
-        if (amenities != null && !amenities.isEmpty()) {
-            List<Criteria> amenityCriteria = new ArrayList<>();
-            for (String amenity : amenities) {
-                // "i" = case insensitive. Finds "Wifi" even inside "[\"Wifi\"]"
-                amenityCriteria.add(Criteria.where("amenities").regex(amenity, "i"));
+        // Amenities Filter (cleaned tokens: "Wifi" matches the dataset's "[\"Wifi\"")
+        // $all: Property must have ALL requested amenities
+        List<String> amenityKeys = SearchKeys.amenities(amenities);
+        if (!amenityKeys.isEmpty()) {
+            query.addCriteria(Criteria.where("amenityKeys").all(amenityKeys));
+        }
+
+        // Projection: only what the result list shows (no reviews, no POIs, first photo only)
+        query.fields()
+                .include("name", "description", "city", "region", "country", "amenities", "location", "ratingStats",
+                        "rooms.roomId", "rooms.status", "rooms.pricePerNightAdults")
+                .slice("photos", 1);
+
+        int pageSize = resolvePageSize(size);
+        String lastId = decodeCursor(cursor);
+        List<PropertyResponseDTO> items = new ArrayList<>();
+        boolean exhausted = false;
+
+        // The date filter may drop properties: read further batches until the page is full
+        while (items.size() < pageSize && !exhausted) {
+            int remaining = pageSize - items.size();
+            List<Property> batch = mongoTemplate.find(nextBatch(query, lastId, remaining), Property.class);
+            exhausted = batch.size() < remaining;
+            if (batch.isEmpty()) break;
+            lastId = batch.get(batch.size() - 1).getId();
+
+            // Date Filter: keep properties with at least one bookable room in the price range
+            if (checkIn != null && checkOut != null) {
+                List<String> candidateRoomIds = batch.stream()
+                        .filter(p -> p.getRooms() != null)
+                        .flatMap(p -> p.getRooms().stream())
+                        .filter(r -> isBookable(r) && isInPriceRange(r, minPrice, maxPrice))
+                        .map(Room::getId)
+                        .collect(Collectors.toList());
+                Set<String> freeRoomIds = roomAvailabilityService.findAvailableRooms(candidateRoomIds, checkIn, checkOut);
+
+                batch = batch.stream()
+                        .filter(p -> p.getRooms() != null && p.getRooms().stream()
+                                .anyMatch(r -> isBookable(r) && isInPriceRange(r, minPrice, maxPrice)
+                                        && freeRoomIds.contains(r.getId())))
+                        .collect(Collectors.toList());
             }
-            // AND Operator: Property must have ALL requested amenities
-            query.addCriteria(new Criteria().andOperator(amenityCriteria.toArray(new Criteria[0])));
+
+            batch.stream().map(this::mapToDTO).forEach(items::add);
         }
 
-        List<Property> properties = mongoTemplate.find(query, Property.class);
-        return properties.stream().map(this::mapToDTO).collect(Collectors.toList());
+        return SearchPageDTO.<PropertyResponseDTO>builder()
+                .items(items)
+                .nextCursor(exhausted ? null : encodeCursor(lastId))
+                .build();
     }
 
     // GEOSPATIAL SEARCH (Map)
@@ -84,44 +141,54 @@ public class PropertyService {
 
     /**
      * Cache: properties with TTL of 1 hour
-     * Tracks trending properties and counts views
+     * sync: concurrent misses on the same property wait for a single load (see TwoLevelCache)
+     * Views are counted by the caller (ViewCounterService), so cache hits are counted too
      */
-    @Cacheable(value = "properties", key = "#propertyId")
+    @Cacheable(value = "properties", key = "#propertyId", sync = true)
     public PropertyResponseDTO getPropertyDetails(String propertyId) {
         Property property = propertyRepository.findById(propertyId)
                 .orElseThrow(() -> new IllegalArgumentException("Property not found"));
 
-        try {
-            // Increment visit counter on Redis (Sorted Set)
-            redisTemplate.opsForZSet().incrementScore("trending_properties", propertyId, 1);
-            
-            // Add to user history if needed here
-            // But usually we do it in the controller if user is logged in
-        } catch (Exception e) {
-            System.err.println("Redis error: " + e.getMessage());
-        }
-
         return mapToDTO(property);
     }
+
+    /**
+     * Drops the cached details of a property (both cache tiers, on every node) and its list card.
+     * Called by the write paths that change a property outside of this service.
+     */
+    @CacheEvict(value = "properties", key = "#propertyId")
+    public void evictPropertyDetails(String propertyId) {
+        propertySummaryService.evict(propertyId);
+    }
+
+    /**
+     * Drops the cached top rated list (both cache tiers, on every node).
+     * Called by the review writes, which change the ratings it is sorted by.
+     */
+    @CacheEvict(value = "topRatedProperties", key = "'top20'")
+    public void evictTopRatedProperties() {
+    }
     
-    public List<PropertyResponseDTO> getTrendingProperties() {
+    /**
+     * Top 10 most viewed properties of the window ("1h", "24h" or "7d"), optionally in one city
+     */
+    public List<PropertyResponseDTO> getTrendingProperties(String window, String city) {
+        TrendingService.Window trendingWindow = TrendingService.Window.parse(window);
         try {
-            // Get top 10 IDs with highest score (Reverse Range)
-            var topIds = redisTemplate.opsForZSet().reverseRange("trending_properties", 0, 9);
-            if (topIds == null || topIds.isEmpty()) return List.of();
+            List<String> ids = trendingService.topPropertyIds(trendingWindow, SearchKeys.city(city), 10);
 
-            List<String> ids = topIds.stream().map(Object::toString).collect(Collectors.toList());
-            
-            // Retrieve details from Mongo
-            List<Property> properties = (List<Property>) propertyRepository.findAllById(ids);
-            
-            // Note: findAllById doesn't guarantee order, but it's fine for now
-            return properties.stream().map(this::mapToDTO).collect(Collectors.toList());
+            // Summary cards in ranking order (cached, misses read from Mongo)
+            return propertySummaryService.getSummaries(ids);
         } catch (Exception e) {
+            System.err.println("Redis error: " + e.getMessage());
             return List.of();
         }
     }
     
+    /**
+     * Cache: top 20 by rating with TTL of 10 minutes, loaded once per expiry (sync)
+     */
+    @Cacheable(value = "topRatedProperties", key = "'top20'", sync = true)
     public List<PropertyResponseDTO> getTopRatedProperties() {
         Query query = new Query();
         query.with(Sort.by(Sort.Direction.DESC, "ratingStats.value"));
@@ -152,9 +219,9 @@ public class PropertyService {
             
             if (historyIds == null || historyIds.isEmpty()) return List.of();
 
+            // Most recent first, as stored in the list
             List<String> ids = historyIds.stream().map(Object::toString).collect(Collectors.toList());
-            List<Property> properties = (List<Property>) propertyRepository.findAllById(ids);
-            return properties.stream().map(this::mapToDTO).collect(Collectors.toList());
+            return propertySummaryService.getSummaries(ids);
         } catch (Exception e) {
              System.err.println("Redis error (Get History): " + e.getMessage());
              return List.of();
@@ -219,22 +286,32 @@ public class PropertyService {
                 .build();
     }
 
-    // ROOM SEARCH
-    public List<RoomResponseDTO> searchRooms(String city, String roomType, Double minPrice, 
-                                              Double maxPrice, Integer minCapacity, List<String> amenities) {
+    /**
+     * ROOM SEARCH
+     * Paginated by property (keyset on _id): the rooms of a property are never split
+     * across pages, so a page can hold slightly more than the requested size.
+     */
+    public SearchPageDTO<RoomResponseDTO> searchRooms(String city, String roomType, Double minPrice, 
+                                                      Double maxPrice, Integer minCapacity, List<String> amenities,
+                                                      LocalDate checkIn, LocalDate checkOut,
+                                                      String cursor, Integer size) {
         Query query = new Query();
 
-        // City Filter (Case Insensitive)
-        if (city != null && !city.trim().isEmpty()) {
-            query.addCriteria(Criteria.where("city").regex(city, "i"));
+        // City Filter (normalized key)
+        String cityKey = SearchKeys.city(city);
+        if (cityKey != null) {
+            query.addCriteria(Criteria.where("cityKey").is(cityKey));
         }
 
+        String roomTypeKey = SearchKeys.roomType(roomType);
+        List<String> amenityKeys = SearchKeys.amenities(amenities);
+
         // Combine all room criteria in a single $elemMatch
         List<Criteria> roomCriteriaList = new ArrayList<>();
         
         // Room Type Filter
-        if (roomType != null && !roomType.trim().isEmpty()) {
-            roomCriteriaList.add(Criteria.where("roomType").regex(roomType, "i"));
+        if (roomTypeKey != null) {
+            roomCriteriaList.add(Criteria.where("roomTypeKey").is(roomTypeKey));
         }
 
         // Price Filter (in rooms)
@@ -251,10 +328,8 @@ public class PropertyService {
         }
 
         // Room Amenities Filter
-        if (amenities != null && !amenities.isEmpty()) {
-            for (String amenity : amenities) {
-                roomCriteriaList.add(Criteria.where("amenities").regex(amenity, "i"));
-            }
+        if (!amenityKeys.isEmpty()) {
+            roomCriteriaList.add(Criteria.where("amenityKeys").all(amenityKeys));
         }
 
         // Apply single combined $elemMatch if there are room criteria
@@ -265,58 +340,132 @@ public class PropertyService {
             query.addCriteria(Criteria.where("rooms").elemMatch(combinedRoomCriteria));
         }
 
-        // Execute the query
-        List<Property> properties = mongoTemplate.find(query, Property.class);
+        // Projection: rooms are needed in full, the rest of the property only for the labels
+        query.fields().include("name", "city", "rooms");
 
-        // Extract and filter rooms that match the criteria
+        int pageSize = resolvePageSize(size);
+        String lastId = decodeCursor(cursor);
         List<RoomResponseDTO> result = new ArrayList<>();
-        for (Property property : properties) {
-            if (property.getRooms() == null) continue;
-            
-            for (Room room : property.getRooms()) {
-                // Check if room satisfies the criteria
-                boolean matches = true;
-
-                // roomType filter
-                if (roomType != null && !roomType.trim().isEmpty()) {
-                    if (room.getRoomType() == null || 
-                        !room.getRoomType().toLowerCase().contains(roomType.toLowerCase())) {
-                        matches = false;
-                    }
-                }
-
-                // Price filter
-                if (matches && minPrice != null && room.getPricePerNightAdults() != null) {
-                    if (room.getPricePerNightAdults() < minPrice) matches = false;
-                }
-                if (matches && maxPrice != null && room.getPricePerNightAdults() != null) {
-                    if (room.getPricePerNightAdults() > maxPrice) matches = false;
-                }
+        boolean exhausted = false;
+
+        while (result.size() < pageSize && !exhausted) {
+            int remaining = pageSize - result.size();
+            List<Property> batch = mongoTemplate.find(nextBatch(query, lastId, remaining), Property.class);
+            exhausted = batch.size() < remaining;
+
+            // Date Filter: rooms free for the whole stay, resolved in one call per batch
+            Set<String> freeRoomIds = null;
+            if (checkIn != null && checkOut != null) {
+                List<String> candidateRoomIds = batch.stream()
+                        .filter(p -> p.getRooms() != null)
+                        .flatMap(p -> p.getRooms().stream())
+                        .filter(this::isBookable)
+                        .map(Room::getId)
+                        .collect(Collectors.toList());
+                freeRoomIds = roomAvailabilityService.findAvailableRooms(candidateRoomIds, checkIn, checkOut);
+            }
 
-                // Capacity filter
-                if (matches && minCapacity != null && room.getCapacityAdults() != null) {
-                    if (room.getCapacityAdults() < minCapacity) matches = false;
-                }
+            // Extract and filter rooms that match the criteria
+            for (Property property : batch) {
+                lastId = property.getId();
+                if (property.getRooms() != null) {
+                    for (Room room : property.getRooms()) {
+                        boolean matches = matchesRoomFilters(room, roomTypeKey, minPrice, maxPrice, minCapacity, amenityKeys);
 
-                // Room amenities filter
-                if (matches && amenities != null && !amenities.isEmpty() && room.getAmenities() != null) {
-                    for (String amenity : amenities) {
-                        boolean found = room.getAmenities().stream()
-                            .anyMatch(a -> a.toLowerCase().contains(amenity.toLowerCase()));
-                        if (!found) {
+                        // Availability filter
+                        if (matches && freeRoomIds != null && !freeRoomIds.contains(room.getId())) {
                             matches = false;
-                            break;
+                        }
+
+                        if (matches) {
+                            result.add(mapRoomToDTO(room, property));
                         }
                     }
                 }
 
-                if (matches) {
-                    result.add(mapRoomToDTO(room, property));
+                // Page full: the next page starts after this property
+                if (result.size() >= pageSize) {
+                    exhausted = exhausted && property == batch.get(batch.size() - 1);
+                    break;
                 }
             }
         }
 
-        return result;
+        return SearchPageDTO.<RoomResponseDTO>builder()
+                .items(result)
+                .nextCursor(exhausted ? null : encodeCursor(lastId))
+                .build();
+    }
+
+    // HELPER: Room-level filters of the room search (the query only guarantees one matching room per property)
+    private boolean matchesRoomFilters(Room room, String roomTypeKey, Double minPrice, Double maxPrice,
+                                       Integer minCapacity, List<String> amenityKeys) {
+        // roomType filter
+        if (roomTypeKey != null && !roomTypeKey.equals(SearchKeys.roomType(room.getRoomType()))) {
+            return false;
+        }
+
+        // Price filter
+        if (minPrice != null && room.getPricePerNightAdults() != null) {
+            if (room.getPricePerNightAdults() < minPrice) return false;
+        }
+        if (maxPrice != null && room.getPricePerNightAdults() != null) {
+            if (room.getPricePerNightAdults() > maxPrice) return false;
+        }
+
+        // Capacity filter
+        if (minCapacity != null && room.getCapacityAdults() != null) {
+            if (room.getCapacityAdults() < minCapacity) return false;
+        }
+
+        // Room amenities filter
+        if (!amenityKeys.isEmpty() && !SearchKeys.amenities(room.getAmenities()).containsAll(amenityKeys)) {
+            return false;
+        }
+
+        return true;
+    }
+
+    // HELPER: Next keyset batch of a search query (sorted by _id, after the last seen one, across id types)
+    private Query nextBatch(Query query, String lastId, int limit) {
+        Query batch = Query.of(query);
+        if (lastId != null) {
+            batch.addCriteria(MongoIds.after(lastId));
+        }
+        return batch.with(Sort.by(Sort.Direction.ASC, "_id")).limit(limit);
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null || size < 1) return DEFAULT_PAGE_SIZE;
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    // Cursors are the last property id, Base64 encoded so clients treat them as opaque
+    private String encodeCursor(String lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid search cursor.");
+        }
+    }
+
+    // HELPER: Room can be reserved (initiateReservation rejects the others)
+    private boolean isBookable(Room room) {
+        return room.getId() != null && "available".equalsIgnoreCase(room.getStatus());
+    }
+
+    // HELPER: Room price within the optional search bounds
+    private boolean isInPriceRange(Room room, Double minPrice, Double maxPrice) {
+        if (minPrice == null && maxPrice == null) return true;
+        if (room.getPricePerNightAdults() == null) return false;
+        if (minPrice != null && room.getPricePerNightAdults() < minPrice) return false;
+        if (maxPrice != null && room.getPricePerNightAdults() > maxPrice) return false;
+        return true;
     }
 
     // HELPER: Map Room Entity -> DTO
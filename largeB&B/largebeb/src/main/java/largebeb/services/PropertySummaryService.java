@@ -0,0 +1,153 @@
+package largebeb.services;
+
+import largebeb.dto.PropertyResponseDTO;
+import largebeb.model.Property;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch loader of property summary cards for list views (trending, history,
+ * favorites, recommendations).
+ *
+ * Cards are cached in Redis as "property_summary:{id}". A list is resolved with
+ * one MGET; only the misses are read from MongoDB, with a projection on the card
+ * fields, and written back in one pipeline. Results follow the requested order.
+ *
+ * A card is a PropertyResponseDTO with the list fields only: id, name, city, region,
+ * country, starting price, rating, amenities, coordinates and the first photo.
+ * description, pois and latestReviews are null; the property details endpoint
+ * (GET /api/properties/{id}) returns the full DTO.
+ */
+@Service
+@RequiredArgsConstructor
+public class PropertySummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PropertySummaryService.class);
+
+    private static final String SUMMARY_PREFIX = "property_summary:";
+    private static final long SUMMARY_TTL_SECONDS = TimeUnit.HOURS.toSeconds(1);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final MongoTemplate mongoTemplate;
+
+    // Summary cards of the given properties, in the same order (unknown ids are skipped)
+    public List<PropertyResponseDTO> getSummaries(Collection<String> propertyIds) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(propertyIds));
+        if (ids.isEmpty()) return List.of();
+
+        Map<String, PropertyResponseDTO> cards = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+
+        // 1. One round trip for all the cached cards
+        List<Object> cached = null;
+        try {
+            cached = redisTemplate.opsForValue().multiGet(ids.stream().map(id -> SUMMARY_PREFIX + id).toList());
+        } catch (Exception e) {
+            logger.error("Redis error (Summary MGET): {}", e.getMessage());
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            Object card = cached != null ? cached.get(i) : null;
+            if (card instanceof PropertyResponseDTO dto) {
+                cards.put(ids.get(i), dto);
+            } else {
+                misses.add(ids.get(i));
+            }
+        }
+
+        // 2. Misses only, card fields only
+        if (!misses.isEmpty()) {
+            Map<String, PropertyResponseDTO> loaded = loadFromMongo(misses);
+            cards.putAll(loaded);
+            backfill(loaded);
+        }
+
+        return ids.stream().map(cards::get).filter(Objects::nonNull).toList();
+    }
+
+    // Drops the card of a modified or deleted property
+    public void evict(String propertyId) {
+        try {
+            redisTemplate.delete(SUMMARY_PREFIX + propertyId);
+        } catch (Exception e) {
+            logger.error("Redis error (Summary evict {}): {}", propertyId, e.getMessage());
+        }
+    }
+
+    // HELPER METHODS
+
+    private Map<String, PropertyResponseDTO> loadFromMongo(List<String> propertyIds) {
+        Query query = new Query(Criteria.where("_id").in(propertyIds));
+        query.fields()
+                .include("name", "city", "region", "country", "amenities", "location", "ratingStats.value",
+                        "rooms.pricePerNightAdults")
+                .slice("photos", 1);
+
+        Map<String, PropertyResponseDTO> cards = new HashMap<>();
+        for (Property property : mongoTemplate.find(query, Property.class)) {
+            cards.put(property.getId(), toSummary(property));
+        }
+        return cards;
+    }
+
+    private void backfill(Map<String, PropertyResponseDTO> cards) {
+        if (cards.isEmpty()) return;
+        try {
+            @SuppressWarnings("unchecked")
+            RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+            @SuppressWarnings("unchecked")
+            RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                cards.forEach((id, card) -> connection.stringCommands().setEx(
+                        keySerializer.serialize(SUMMARY_PREFIX + id), SUMMARY_TTL_SECONDS, valueSerializer.serialize(card)));
+                return null;
+            });
+        } catch (Exception e) {
+            logger.error("Redis error (Summary backfill): {}", e.getMessage());
+        }
+    }
+
+    // Card: what a list item shows ("Starting from" price, rating, first photo, map position)
+    private PropertyResponseDTO toSummary(Property p) {
+        double minPrice = p.getRooms() == null ? 0.0 : p.getRooms().stream()
+                .filter(r -> r.getPricePerNightAdults() != null)
+                .mapToDouble(r -> r.getPricePerNightAdults().doubleValue())
+                .min()
+                .orElse(0.0);
+
+        List<Double> coords = null;
+        if (p.getLocation() != null) {
+            coords = List.of(p.getLocation().getX(), p.getLocation().getY());
+        }
+
+        return PropertyResponseDTO.builder()
+                .id(p.getId())
+                .name(p.getName())
+                .city(p.getCity())
+                .region(p.getRegion())
+                .country(p.getCountry())
+                .pricePerNight(minPrice)
+                .rating(p.getRatingStats() != null ? p.getRatingStats().getValue() : 0.0)
+                .amenities(p.getAmenities())
+                .photos(p.getPhotos())
+                .coordinates(coords)
+                .build();
+    }
+}
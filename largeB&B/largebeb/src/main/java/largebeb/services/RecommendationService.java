@@ -1,10 +1,6 @@
 package largebeb.services;
 
-import largebeb.dto.PointOfInterestDTO;
 import largebeb.dto.PropertyResponseDTO;
-import largebeb.model.PointOfInterest;
-import largebeb.model.Property;
-import largebeb.repository.PropertyRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -16,15 +12,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class RecommendationService {
 
     private final Neo4jClient neo4jClient;
-    private final PropertyRepository propertyRepository;
     private final MongoTemplate mongoTemplate;
+    private final PropertySummaryService propertySummaryService;
 
     // COLLABORATIVE FILTERING (Neo4j)
     public List<PropertyResponseDTO> getCollaborativeRecommendations(String propertyId) {
@@ -46,8 +41,8 @@ public class RecommendationService {
             return Collections.emptyList();
         }
 
-        List<Property> properties = (List<Property>) propertyRepository.findAllById(recommendedIds);
-        return properties.stream().map(this::mapToDTO).collect(Collectors.toList());
+        // Summary cards in Neo4j's order (strongest first)
+        return propertySummaryService.getSummaries(recommendedIds);
     }
 
     // CONTENT-BASED FILTERING (MongoDB)
@@ -79,19 +74,9 @@ public List<PropertyResponseDTO> getContentBasedRecommendations(String propertyI
         }
 
         // Data Hydration (Hybrid Approach):
-        // Neo4j gives us only the IDs (very fast), now we ask Mongo for details (Photos, Prices, etc.)
-        List<Property> properties = (List<Property>) propertyRepository.findAllById(recommendedIds);
-        
-        // We need to maintain Neo4j's order (from most similar to least similar).
-        // We create a map to reorder the list.
-        var propertyMap = properties.stream()
-                .collect(Collectors.toMap(Property::getId, p -> p));
-        
-        return recommendedIds.stream()
-                .map(propertyMap::get)           // Get object from map in correct order
-                .filter(java.util.Objects::nonNull) // Avoid crash if Mongo doesn't find an ID
-                .map(this::mapToDTO)             // Convert to DTO
-                .collect(Collectors.toList());
+        // Neo4j gives us only the IDs (very fast), the summary cards come from Redis (Mongo for the misses)
+        // and keep Neo4j's order (from most similar to least similar).
+        return propertySummaryService.getSummaries(recommendedIds);
     }
 
     private long countCommon(List<String> l1, List<String> l2) {
@@ -100,55 +85,4 @@ public List<PropertyResponseDTO> getContentBasedRecommendations(String propertyI
         copy.retainAll(l2);
         return copy.size();
     }
-
-    // Helper: Map Entity -> DTO (FIXED FLOAT AND PHOTO)
-    private PropertyResponseDTO mapToDTO(Property p) {
-        Double minPrice = 0.0;
-        if (p.getRooms() != null && !p.getRooms().isEmpty()) {
-            minPrice = p.getRooms().stream()
-                .filter(r -> r.getPricePerNightAdults() != null)
-                .mapToDouble(r -> r.getPricePerNightAdults().doubleValue())
-                .min()
-                .orElse(0.0);
-        }
-
-        // Convert GeoJsonPoint to List<Double> [lon, lat]
-        java.util.List<Double> coords = null;
-        if (p.getLocation() != null) {
-            coords = java.util.List.of(p.getLocation().getX(), p.getLocation().getY());
-        }
-
-        // Convert POI to DTO
-        List<PointOfInterestDTO> poisDTO = null;
-        if (p.getPois() != null) {
-            poisDTO = p.getPois().stream()
-                .map(this::mapPoiToDTO)
-                .collect(Collectors.toList());
-        }
-
-        return PropertyResponseDTO.builder()
-                .id(p.getId())
-                .name(p.getName())
-                .city(p.getCity())
-                .pricePerNight(minPrice)
-                .rating(p.getRatingStats() != null ? p.getRatingStats().getValue() : 0.0)
-                .amenities(p.getAmenities())
-                .photos(p.getPhotos())
-                .pois(poisDTO)
-                .coordinates(coords)
-                .build();
-    }
-
-    private PointOfInterestDTO mapPoiToDTO(PointOfInterest poi) {
-        List<Double> poiCoords = null;
-        if (poi.getLocation() != null) {
-            poiCoords = List.of(poi.getLocation().getX(), poi.getLocation().getY());
-        }
-        return PointOfInterestDTO.builder()
-                .id(poi.getId())
-                .name(poi.getName())
-                .category(poi.getCategory())
-                .coordinates(poiCoords)
-                .build();
-    }
 }
\ No newline at end of file
@@ -0,0 +1,289 @@
+package largebeb.services;
+
+import largebeb.model.Property;
+import largebeb.model.Reservation;
+import largebeb.model.Room;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-pass accumulator behind the property analytics.
+ *
+ * Reservations are fed one at a time (straight from a MongoDB cursor) and every
+ * metric of AnalyticsService is updated in the same pass: status counts, revenue,
+ * nights, occupancy, per-room and per-month figures, day-of-week, lead time and
+ * stay duration. State lives in primitive arrays indexed by room position and by
+ * month offset, so memory depends on rooms and months, not on reservations.
+ *
+ * Revenue is the stored totalPrice of each reservation (the amount charged at
+ * booking time), so it does not move when the room prices change.
+ */
+final class ReservationAccumulator {
+
+    // Stay duration buckets, same labels as the trends DTO
+    static final String[] STAY_BUCKETS = {"1-2 nights", "3-5 nights", "6-7 nights", "1-2 weeks", "2+ weeks"};
+
+    private static final int INITIAL_MONTHS = 24;
+
+    private final LocalDate periodStart;
+    private final LocalDate periodEnd;
+
+    // Rooms of the property, by position
+    private final List<Room> rooms;
+    private final Map<String, Integer> roomIndex = new HashMap<>();
+
+    // Totals
+    private long total;
+    private long confirmed;
+    private long cancelled;
+    private long completed;
+    private long active; // not cancelled
+    private double revenue;
+    private long nights;
+    private long adults;
+    private long children;
+    private long occupiedNights; // clipped to the period
+
+    // Per room (non-cancelled reservations)
+    private final long[] roomBookings;
+    private final long[] roomNights;
+    private final double[] roomRevenue;
+
+    // Per month of check-in, index = epoch month - monthBase
+    private int monthBase;
+    private int monthMin = Integer.MAX_VALUE;
+    private int monthMax = Integer.MIN_VALUE;
+    private long[] monthBookings;   // all statuses
+    private long[] monthCancelled;
+    private long[] monthActive;
+    private double[] monthRevenue;
+    private long[] monthGuests;
+
+    // Trends
+    private final long[] dayOfWeekBookings = new long[7];
+    private long leadTimeCount;
+    private double leadTimeSum;
+    private double leadTimeMin = Double.MAX_VALUE;
+    private double leadTimeMax = -Double.MAX_VALUE;
+    private long stayCount;
+    private double staySum;
+    private final long[] stayBuckets = new long[STAY_BUCKETS.length];
+
+    /**
+     * @param periodStart start of the analysed period (null = open, no occupancy)
+     * @param periodEnd end of the analysed period (null = open, no occupancy)
+     */
+    ReservationAccumulator(Property property, LocalDate periodStart, LocalDate periodEnd) {
+        this.periodStart = periodStart;
+        this.periodEnd = periodEnd;
+        this.rooms = property.getRooms() != null ? property.getRooms() : List.of();
+
+        int n = rooms.size();
+        roomBookings = new long[n];
+        roomNights = new long[n];
+        roomRevenue = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            roomIndex.putIfAbsent(rooms.get(i).getId(), i);
+        }
+    }
+
+    // Updates every metric with one reservation
+    void accept(Reservation res) {
+        String status = res.getStatus();
+        boolean isCancelled = "CANCELLED".equalsIgnoreCase(status);
+        Reservation.ReservationDates dates = res.getDates();
+        LocalDate checkIn = dates != null ? dates.getCheckIn() : null;
+        LocalDate checkOut = dates != null ? dates.getCheckOut() : null;
+        Integer room = roomIndex.get(res.getRoomId());
+
+        total++;
+        if ("CONFIRMED".equalsIgnoreCase(status)) confirmed++;
+        else if ("COMPLETED".equalsIgnoreCase(status)) completed++;
+        else if (isCancelled) cancelled++;
+
+        // Month and day of week (all statuses)
+        int month = -1;
+        if (checkIn != null) {
+            dayOfWeekBookings[checkIn.getDayOfWeek().getValue() - 1]++;
+            month = monthSlot(checkIn);
+            monthBookings[month]++;
+            if (isCancelled) monthCancelled[month]++;
+        }
+
+        // Lead time (days between booking and check-in)
+        if (checkIn != null && res.getCreatedAt() != null) {
+            long leadTime = ChronoUnit.DAYS.between(res.getCreatedAt().toLocalDate(), checkIn);
+            if (leadTime >= 0) {
+                leadTimeCount++;
+                leadTimeSum += leadTime;
+                leadTimeMin = Math.min(leadTimeMin, leadTime);
+                leadTimeMax = Math.max(leadTimeMax, leadTime);
+            }
+        }
+
+        if (isCancelled) return;
+
+        // Non-cancelled reservations only from here
+        int resAdults = res.getAdults();
+        int resChildren = res.getChildren();
+        active++;
+        adults += resAdults;
+        children += resChildren;
+        if (room != null) roomBookings[room]++;
+
+        if (checkIn == null || checkOut == null) return;
+
+        long stay = ChronoUnit.DAYS.between(checkIn, checkOut);
+        if (stay > 0) {
+            stayCount++;
+            staySum += stay;
+            stayBuckets[stayBucket(stay)]++;
+        }
+
+        double resRevenue = 0.0;
+        if (room != null) {
+            long billedNights = res.getNights() != null ? res.getNights() : Math.max(stay, 1);
+            resRevenue = res.getTotalPrice() != null ? res.getTotalPrice() : 0.0;
+            nights += billedNights;
+            revenue += resRevenue;
+            roomNights[room] += billedNights;
+            roomRevenue[room] += resRevenue;
+        }
+
+        monthActive[month]++;
+        monthRevenue[month] += resRevenue;
+        monthGuests[month] += resAdults + resChildren;
+
+        // Occupancy: nights inside the period
+        if (periodStart != null && periodEnd != null) {
+            LocalDate from = checkIn.isBefore(periodStart) ? periodStart : checkIn;
+            LocalDate to = checkOut.isAfter(periodEnd) ? periodEnd : checkOut;
+            long inPeriod = ChronoUnit.DAYS.between(from, to);
+            if (inPeriod > 0) occupiedNights += inPeriod;
+        }
+    }
+
+    // TOTALS
+
+    long getTotal() { return total; }
+    long getConfirmed() { return confirmed; }
+    long getCancelled() { return cancelled; }
+    long getCompleted() { return completed; }
+    long getActive() { return active; }
+    double getRevenue() { return revenue; }
+    long getNights() { return nights; }
+    long getAdults() { return adults; }
+    long getChildren() { return children; }
+
+    // Booked nights over available room-nights of the period (0 if the period is open)
+    double getOccupancyRate() {
+        if (rooms.isEmpty() || periodStart == null || periodEnd == null) return 0.0;
+        long days = Math.max(ChronoUnit.DAYS.between(periodStart, periodEnd), 1);
+        return occupiedNights * 100.0 / (rooms.size() * days);
+    }
+
+    double getAvgGuestsPerBooking() {
+        return active > 0 ? (double) (adults + children) / active : 0.0;
+    }
+
+    // PER ROOM
+
+    List<Room> getRooms() { return rooms; }
+    long getRoomBookings(int room) { return roomBookings[room]; }
+    long getRoomNights(int room) { return roomNights[room]; }
+    double getRoomRevenue(int room) { return roomRevenue[room]; }
+
+    // Room type with the most non-cancelled bookings ("N/A" if none)
+    String getMostBookedRoomType() {
+        Map<String, Long> byType = new LinkedHashMap<>();
+        for (int i = 0; i < rooms.size(); i++) {
+            String type = rooms.get(i).getRoomType();
+            if (type != null && roomBookings[i] > 0) byType.merge(type, roomBookings[i], Long::sum);
+        }
+        String best = "N/A";
+        long bestCount = 0;
+        for (Map.Entry<String, Long> entry : byType.entrySet()) {
+            if (entry.getValue() > bestCount) {
+                best = entry.getKey();
+                bestCount = entry.getValue();
+            }
+        }
+        return best;
+    }
+
+    // PER MONTH (iteration in chronological order, months without data skipped)
+
+    interface MonthVisitor {
+        void visit(String month, long bookings, long cancelled, long active, double revenue, long guests);
+    }
+
+    void forEachMonth(MonthVisitor visitor) {
+        for (int m = monthMin; m <= monthMax; m++) {
+            int i = m - monthBase;
+            if (monthBookings[i] == 0) continue;
+            visitor.visit(YearMonth.of(Math.floorDiv(m, 12), Math.floorMod(m, 12) + 1).toString(),
+                    monthBookings[i], monthCancelled[i], monthActive[i], monthRevenue[i], monthGuests[i]);
+        }
+    }
+
+    // TRENDS
+
+    long getDayOfWeekBookings(int dayIndex) { return dayOfWeekBookings[dayIndex]; }
+    double getAvgLeadTime() { return leadTimeCount > 0 ? leadTimeSum / leadTimeCount : 0; }
+    double getMinLeadTime() { return leadTimeCount > 0 ? leadTimeMin : 0; }
+    double getMaxLeadTime() { return leadTimeCount > 0 ? leadTimeMax : 0; }
+    double getAvgStay() { return stayCount > 0 ? staySum / stayCount : 0; }
+    long getStayBucket(int bucket) { return stayBuckets[bucket]; }
+
+    // HELPER METHODS
+
+    private static int stayBucket(long nights) {
+        if (nights <= 2) return 0;
+        if (nights <= 5) return 1;
+        if (nights <= 7) return 2;
+        if (nights <= 14) return 3;
+        return 4;
+    }
+
+    // Index of the check-in month in the month arrays, growing them when needed
+    private int monthSlot(LocalDate date) {
+        int epochMonth = date.getYear() * 12 + date.getMonthValue() - 1;
+        if (monthBookings == null) {
+            monthBase = epochMonth - INITIAL_MONTHS / 2;
+            allocateMonths(0, INITIAL_MONTHS);
+        } else if (epochMonth < monthBase) {
+            int shift = Math.max(monthBase - epochMonth, monthBookings.length);
+            monthBase -= shift;
+            allocateMonths(shift, monthBookings.length + shift);
+        } else if (epochMonth - monthBase >= monthBookings.length) {
+            allocateMonths(0, Math.max(epochMonth - monthBase + 1, monthBookings.length * 2));
+        }
+        monthMin = Math.min(monthMin, epochMonth);
+        monthMax = Math.max(monthMax, epochMonth);
+        return epochMonth - monthBase;
+    }
+
+    // Reallocates the month arrays with the given size, moving existing data by offset
+    private void allocateMonths(int offset, int size) {
+        monthBookings = resize(monthBookings, offset, size);
+        monthCancelled = resize(monthCancelled, offset, size);
+        monthActive = resize(monthActive, offset, size);
+        monthGuests = resize(monthGuests, offset, size);
+        double[] revenues = new double[size];
+        if (monthRevenue != null) System.arraycopy(monthRevenue, 0, revenues, offset, monthRevenue.length);
+        monthRevenue = revenues;
+    }
+
+    private static long[] resize(long[] values, int offset, int size) {
+        long[] resized = new long[size];
+        if (values != null) System.arraycopy(values, 0, resized, offset, values.length);
+        return resized;
+    }
+}
@@ -1,8 +1,8 @@
 package largebeb.services;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import largebeb.dto.ReservationRequestDTO;
 import largebeb.dto.ReservationResponseDTO;
+import largebeb.dto.SearchPageDTO;
 import largebeb.model.Property;
 import largebeb.model.RegisteredUser;
 import largebeb.model.Reservation;
@@ -12,11 +12,19 @@ import largebeb.repository.ReservationGraphRepository;
 import largebeb.repository.ReservationRepository;
 import largebeb.repository.UserRepository;
 import largebeb.utilities.JwtUtil;
+import largebeb.utilities.MongoIds;
 import largebeb.utilities.RatingStats;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import largebeb.model.Customer;
 import largebeb.utilities.PaymentMethod;
@@ -26,11 +34,16 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.concurrent.CompletableFuture;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.nio.charset.StandardCharsets;
 import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -39,16 +52,19 @@ public class ReservationService {
 
     private static final Logger logger = LoggerFactory.getLogger(ReservationService.class);
 
+    // "My reservations" page size (default and upper bound)
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ReservationRepository reservationRepository;
     private final PropertyRepository propertyRepository;
     private final UserRepository userRepository;
     private final ReservationGraphRepository reservationGraphRepository;
-    private final ObjectMapper objectMapper;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final RoomHoldService roomHoldService;
+    private final RoomAvailabilityService roomAvailabilityService;
     private final JwtUtil jwtUtil;
     private final NotificationService notificationService;
-
-    private static final String REDIS_PREFIX = "temp_res:";
+    private final MongoTemplate mongoTemplate;
 
     // INITIATE RESERVATION
 
@@ -96,34 +112,13 @@ public class ReservationService {
         // Validate Occupancy (Using correct field names)
         validateOccupancy(room, request.getAdults(), request.getChildren());
 
-        // Check MongoDB for confirmed bookings (Using ID)
-        List<Reservation> confirmedOverlaps = reservationRepository.findOverlappingReservations(
-                room.getId(), request.getCheckIn(), request.getCheckOut());
-        
-        if (!confirmedOverlaps.isEmpty()) {
-            throw new IllegalStateException("Room is already booked for these dates.");
-        }
+        // Check confirmed bookings: in-memory calendar, MongoDB until it is warmed up
+        boolean alreadyBooked = roomAvailabilityService.isReady()
+                ? !roomAvailabilityService.isAvailable(room.getId(), request.getCheckIn(), request.getCheckOut())
+                : hasConfirmedOverlap(room.getId(), request.getCheckIn(), request.getCheckOut(), null);
 
-        // Check Redis for temporary locks
-        Set<String> keys = redisTemplate.keys(REDIS_PREFIX + "*");
-        if (keys != null) {
-            for (String key : keys) {
-                try {
-                    Reservation pending = objectMapper.convertValue(redisTemplate.opsForValue().get(key), Reservation.class);
-                    // Check overlap using the resolved Room ID
-                    if (pending != null && pending.getRoomId().equals(room.getId()) &&
-                            isOverlapping(pending.getDates(), request.getCheckIn(), request.getCheckOut())) {
-                        throw new IllegalStateException("Room is currently being paid for by another user. Try again in 15 mins.");
-                    }
-                }
-                catch (IllegalStateException e) {
-                    throw e; 
-                }
-                catch (Exception e) {
-                    System.out.println("READING ERROR FOR KEY: "+ key);
-                    e.printStackTrace();
-                }
-            }
+        if (alreadyBooked) {
+            throw new IllegalStateException("Room is already booked for these dates.");
         }
 
         // CREATE TEMPORARY RESERVATION
@@ -134,26 +129,30 @@ public class ReservationService {
                 .id(tempId)
                 .userId(userId)
                 .roomId(room.getId())
+                .propertyId(property.getId())
+                .managerId(property.getManagerId())
                 .adults(request.getAdults())
                 .children(request.getChildren())
                 .dates(new Reservation.ReservationDates(request.getCheckIn(), request.getCheckOut()))
                 .status("PENDING_PAYMENT")
+                .createdAt(LocalDateTime.now()) // Booking time, kept by the confirmed reservation
                 .build();
 
-        redisTemplate.opsForValue().set(REDIS_PREFIX + tempId, tempReservation, 15, TimeUnit.MINUTES);
+        // Check pending locks on this room and lock it in one atomic Redis script
+        if (!roomHoldService.tryPlaceHold(tempReservation)) {
+            throw new IllegalStateException("Room is currently being paid for by another user. Try again in 15 mins.");
+        }
 
         double estimatedPrice = calculateTotalPrice(room, request.getCheckIn(), request.getCheckOut(), request.getAdults(), request.getChildren());
 
         // Map to DTO passing the room and the success message
-        return mapToDTO(tempReservation, room, "Room locked for 15 minutes. Total to pay: €" + String.format("%.2f", estimatedPrice));
+        return mapToDTO(tempReservation, room, property.getId(), "Room locked for 15 minutes. Total to pay: €" + String.format("%.2f", estimatedPrice));
     }
 
     // REMOVE TEMPORARY RESERVATION
     public void removeTemporaryReservation(String token, String tempReservationId) {
-        String redisKey = REDIS_PREFIX + tempReservationId;
-
         // Check if the temporary reservation exists in Redis
-        Reservation tempReservation = (Reservation) redisTemplate.opsForValue().get(redisKey);
+        Reservation tempReservation = roomHoldService.getHold(tempReservationId);
         
         if (tempReservation == null) {
             // Already expired or doesn't exist, simply return
@@ -166,8 +165,9 @@ public class ReservationService {
             throw new SecurityException("Not authorized to remove this reservation lock.");
         }
 
-        // Delete from Redis
-        redisTemplate.delete(redisKey);
+        // Delete from Redis (hold and room index entry)
+        roomHoldService.releaseHold(tempReservation.getId(), tempReservation.getRoomId(),
+                tempReservation.getDates().getCheckOut());
         System.out.println("Temporary reservation " + tempReservationId + " removed from Redis.");
     }
     
@@ -177,10 +177,9 @@ public class ReservationService {
         if (paymentRequest.getTempReservationId() == null || paymentRequest.getTempReservationId().isEmpty()) {
             throw new IllegalArgumentException("Temporary Reservation ID is required to confirm payment.");
         }   
-        String redisKey = REDIS_PREFIX + paymentRequest.getTempReservationId();
 
         // Check if the temporary reservation exists in Redis
-        Reservation tempReservation = (Reservation) redisTemplate.opsForValue().get(redisKey);
+        Reservation tempReservation = roomHoldService.getHold(paymentRequest.getTempReservationId());
         if (tempReservation == null) {
             throw new IllegalArgumentException("Reservation session expired. Please search again.");
         }
@@ -208,7 +207,7 @@ public class ReservationService {
         String gatewayToken = method.getGatewayToken(); // This is our secure token
 
         // Resolve Room and Property for price calculation
-        Property property = propertyRepository.findByRoomsId(tempReservation.getRoomId())
+        Property property = findPropertyOf(tempReservation)
                 .orElseThrow(() -> new IllegalArgumentException("Property not found for this room"));
         
         Room room = property.getRooms().stream()
@@ -224,6 +223,13 @@ public class ReservationService {
                 tempReservation.getChildren()
         );
 
+        // Authoritative re-check on MongoDB before charging: bookings made on other nodes
+        // reach the calendar asynchronously
+        if (hasConfirmedOverlap(tempReservation.getRoomId(), tempReservation.getDates().getCheckIn(),
+                tempReservation.getDates().getCheckOut(), null)) {
+            throw new IllegalStateException("Room is already booked for these dates.");
+        }
+
         // SIMULATE BANK CHARGE USING THE TOKEN
         // We pass the gatewayToken instead of card numbers
         boolean paymentSuccess = simulateBankChargeWithToken(user.getUsername(), amountToPay, gatewayToken);
@@ -233,9 +239,16 @@ public class ReservationService {
         }
 
         // Finalize Reservation
+        final String tempReservationId = tempReservation.getId();
+        final String heldRoomId = tempReservation.getRoomId();
         tempReservation.setStatus("CONFIRMED");
+        tempReservation.setPropertyId(property.getId());
+        tempReservation.setManagerId(property.getManagerId());
+        tempReservation.setTotalPrice(amountToPay);
+        tempReservation.setNights(billedNights(tempReservation.getDates().getCheckIn(), tempReservation.getDates().getCheckOut()));
         tempReservation.setId(null); 
         Reservation finalReservation = reservationRepository.save(tempReservation);
+        roomAvailabilityService.recordBooking(finalReservation);
 
         // Async sync reservation to Neo4j (Eventual Consistency)
         final String finalReservationId = finalReservation.getId();
@@ -267,10 +280,10 @@ public class ReservationService {
             finalReservation.getId()
         );
 
-        // Cleanup Redis
-        redisTemplate.delete(redisKey);
+        // Cleanup Redis (hold and room index entry)
+        roomHoldService.releaseHold(tempReservationId, heldRoomId, finalReservation.getDates().getCheckOut());
 
-        return mapToDTO(finalReservation, room, "Payment successful! €" + String.format("%.2f", amountToPay) + " charged using card ending in " + method.getLast4Digits());
+        return mapToDTO(finalReservation, room, property.getId(), "Payment successful! €" + String.format("%.2f", amountToPay) + " charged using card ending in " + method.getLast4Digits());
     }
 
     // Payment simulation with gateway token
@@ -324,7 +337,7 @@ public class ReservationService {
         String gatewayToken = method.getGatewayToken();
 
         // Resolve Property and Rooms
-        Property currentProp = propertyRepository.findByRoomsId(existingRes.getRoomId())
+        Property currentProp = findPropertyOf(existingRes)
                 .orElseThrow(() -> new IllegalArgumentException("Property not found."));
 
         Room currentRoom = currentProp.getRooms().stream()
@@ -346,19 +359,15 @@ public class ReservationService {
         // Validations (occupancy and conflicts)
         validateOccupancy(targetRoom, newData.getAdults(), newData.getChildren());
 
-        List<Reservation> potentialConflicts = reservationRepository.findOverlappingReservations(
-                targetRoom.getId(), newData.getCheckIn(), newData.getCheckOut());
-
-        boolean actualConflict = potentialConflicts.stream()
-                .anyMatch(r -> !r.getId().equals(reservationId) && !"CANCELLED".equalsIgnoreCase(r.getStatus()));
+        boolean actualConflict = hasConfirmedOverlap(
+                targetRoom.getId(), newData.getCheckIn(), newData.getCheckOut(), reservationId);
 
         if (actualConflict) {
             throw new IllegalStateException("The selected room/dates are already booked.");
         }
 
         // Payment logic with gateway token
-        double oldPrice = calculateTotalPrice(currentRoom, existingRes.getDates().getCheckIn(), 
-                                            existingRes.getDates().getCheckOut(), existingRes.getAdults(), existingRes.getChildren());
+        double oldPrice = paidPrice(existingRes, currentRoom);
         
         double newPrice = calculateTotalPrice(targetRoom, newData.getCheckIn(), 
                                             newData.getCheckOut(), newData.getAdults(), newData.getChildren());
@@ -384,8 +393,11 @@ public class ReservationService {
         existingRes.setDates(new Reservation.ReservationDates(newData.getCheckIn(), newData.getCheckOut()));
         existingRes.setAdults(newData.getAdults());
         existingRes.setChildren(newData.getChildren());
+        existingRes.setTotalPrice(newPrice);
+        existingRes.setNights(billedNights(newData.getCheckIn(), newData.getCheckOut()));
         
         Reservation updated = reservationRepository.save(existingRes);
+        roomAvailabilityService.recordBooking(updated);
         
         // Notify Manager of the modified booking
         notificationService.notifyManagerOfModification(
@@ -394,7 +406,7 @@ public class ReservationService {
             updated.getId()
         );
 
-        return mapToDTO(updated, targetRoom, financeMessage);
+        return mapToDTO(updated, targetRoom, currentProp.getId(), financeMessage);
     }
 
     // CANCEL
@@ -433,7 +445,7 @@ public class ReservationService {
         String gatewayToken = method.getGatewayToken();
 
         // Calculate the total amount to be refunded
-        Property property = propertyRepository.findByRoomsId(reservation.getRoomId())
+        Property property = findPropertyOf(reservation)
                 .orElseThrow(() -> new IllegalArgumentException("Property not found for this reservation."));
 
         Room room = property.getRooms().stream()
@@ -441,13 +453,7 @@ public class ReservationService {
                 .findFirst()
                 .orElseThrow(() -> new IllegalArgumentException("Room details not found."));
 
-        double amountPaid = calculateTotalPrice(
-                room,
-                reservation.getDates().getCheckIn(),
-                reservation.getDates().getCheckOut(),
-                reservation.getAdults(),
-                reservation.getChildren()
-        );
+        double amountPaid = paidPrice(reservation, room);
 
         // Process refund with gateway token
         // Using the secure tokenized helper method
@@ -456,6 +462,7 @@ public class ReservationService {
         // Update status to CANCELLED and persist
         reservation.setStatus("CANCELLED");
         reservationRepository.save(reservation);
+        roomAvailabilityService.removeBooking(reservation);
         
         // Async delete reservation from Neo4j (Eventual Consistency)
         final String finalReservationId = reservationId;
@@ -489,6 +496,12 @@ public class ReservationService {
     }
     // HELPER METHODS
 
+    // MongoDB overlap check, ignoring cancelled bookings and (optionally) the reservation being modified
+    private boolean hasConfirmedOverlap(String roomId, LocalDate checkIn, LocalDate checkOut, String ignoredReservationId) {
+        return reservationRepository.findOverlappingReservations(roomId, checkIn, checkOut).stream()
+                .anyMatch(r -> !r.getId().equals(ignoredReservationId) && !"CANCELLED".equalsIgnoreCase(r.getStatus()));
+    }
+
     // Check capacity room
     private void validateOccupancy(Room room, int adults, int children) {
         // Validation for minimum number of people
@@ -508,8 +521,7 @@ public class ReservationService {
     }
 
     private double calculateTotalPrice(Room room, LocalDate checkIn, LocalDate checkOut, int adults, int children) {
-        long nights = ChronoUnit.DAYS.between(checkIn, checkOut);
-        if (nights < 1) nights = 1;
+        long nights = billedNights(checkIn, checkOut);
 
         double priceAdults = room.getPricePerNightAdults() != null ? room.getPricePerNightAdults() : 0.0;
         double priceChildren = room.getPricePerNightChildren() != null ? room.getPricePerNightChildren() : 0.0;
@@ -518,12 +530,30 @@ public class ReservationService {
         return nightlyCost * nights;
     }
 
-    private boolean isOverlapping(Reservation.ReservationDates existing, LocalDate newIn, LocalDate newOut) {
-        return newIn.isBefore(existing.getCheckOut()) && newOut.isAfter(existing.getCheckIn());
-    }    
+    // Property of the reservation: by its stored propertyId, by room for reservations saved before it existed
+    private Optional<Property> findPropertyOf(Reservation res) {
+        return res.getPropertyId() != null
+                ? propertyRepository.findById(res.getPropertyId())
+                : propertyRepository.findByRoomsId(res.getRoomId());
+    }
+
+    // Stays shorter than one night are billed as one night
+    private int billedNights(LocalDate checkIn, LocalDate checkOut) {
+        return (int) Math.max(ChronoUnit.DAYS.between(checkIn, checkOut), 1);
+    }
+
+    // Amount actually charged for the reservation; reservations saved before totalPrice
+    // existed fall back to the current room prices
+    private double paidPrice(Reservation res, Room room) {
+        if (res.getTotalPrice() != null) {
+            return res.getTotalPrice();
+        }
+        return calculateTotalPrice(room, res.getDates().getCheckIn(), res.getDates().getCheckOut(),
+                res.getAdults(), res.getChildren());
+    }
 
     // Maps Reservation to ReservationResponseDTO using Room details for price, image, and message
-    private ReservationResponseDTO mapToDTO(Reservation res, Room room, String message) {
+    private ReservationResponseDTO mapToDTO(Reservation res, Room room, String propertyId, String message) {
         String roomName = (room != null) ? room.getName() : "Unknown Room";
         
         // Get first photo if available
@@ -531,23 +561,12 @@ public class ReservationService {
                            ? room.getPhotos().get(0) 
                            : null;
 
-        double totalPrice = 0.0;
-        if (room != null) {
-            totalPrice = calculateTotalPrice(
-                room, 
-                res.getDates().getCheckIn(), 
-                res.getDates().getCheckOut(), 
-                res.getAdults(), 
-                res.getChildren()
-            );
-        }
+        double totalPrice = (res.getTotalPrice() != null || room != null) ? paidPrice(res, room) : 0.0;
 
         return ReservationResponseDTO.builder()
                 .id(res.getId())
                 .roomName(roomName)
-                .propertyId(propertyRepository.findByRoomsId(res.getRoomId())
-                                .map(Property::getId)
-                                .orElse(null))
+                .propertyId(propertyId)
                 .roomId(res.getRoomId())
                 .status(res.getStatus())
                 .adults(res.getAdults())
@@ -560,22 +579,118 @@ public class ReservationService {
                 .build();
     }
     
-    // Fetch user reservations
-    public List<ReservationResponseDTO> getUserReservations(String token) {
+    /*
+     Fetch user reservations, most recent first, optionally filtered by status.
+     Keyset pagination on (createdAt, _id), index user_history_created_idx: pass back nextCursor to get the following page.
+     Two queries per page whatever the history size: the reservations, then the
+     booked rooms of all of them (see findBookedRooms).
+    */
+    public SearchPageDTO<ReservationResponseDTO> getUserReservations(String token, String status, String cursor, Integer size) {
         String userId = jwtUtil.getUserIdFromToken(token);
-        
-        List<Reservation> reservations = reservationRepository.findByUserId(userId);
+        int pageSize = resolvePageSize(size);
+
+        Query query = new Query(Criteria.where("userId").is(userId));
+        if (status != null && !status.isBlank()) {
+            // The dataset stores lowercase statuses, the application uppercase ones
+            query.addCriteria(Criteria.where("status").in(status.trim().toUpperCase(), status.trim().toLowerCase()));
+        }
+        String[] last = decodeCursor(cursor);
+        if (last != null) {
+            LocalDateTime lastCreatedAt = parseCursorTime(last[0]);
+            query.addCriteria(new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(lastCreatedAt),
+                    new Criteria().andOperator(
+                            Criteria.where("createdAt").is(lastCreatedAt),
+                            MongoIds.before(last[1]))));
+        }
+        // One extra document tells whether another page exists
+        query.with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id"))).limit(pageSize + 1);
+
+        List<Reservation> reservations = mongoTemplate.find(query, Reservation.class);
+        boolean hasMore = reservations.size() > pageSize;
+        if (hasMore) {
+            reservations = reservations.subList(0, pageSize);
+        }
 
-        return reservations.stream()
+        Map<String, BookedRoom> rooms = findBookedRooms(reservations.stream()
+                .map(Reservation::getRoomId)
+                .distinct()
+                .collect(Collectors.toList()));
+
+        List<ReservationResponseDTO> items = reservations.stream()
             .map(res -> {
-                // Find the correct room in the property
-                Property prop = propertyRepository.findByRoomsId(res.getRoomId()).orElse(null);
-                Room room = (prop != null) ? prop.getRooms().stream()
-                        .filter(r -> r.getId().equals(res.getRoomId()))
-                        .findFirst().orElse(null) : null;
-                
-                return mapToDTO(res, room, null);
+                BookedRoom booked = rooms.get(res.getRoomId());
+                return booked != null
+                        ? mapToDTO(res, booked.room(), booked.propertyId(), null)
+                        : mapToDTO(res, null, null, null);
             })
-            .collect(Collectors.toList());  
+            .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasMore) {
+            Reservation lastRes = reservations.get(reservations.size() - 1);
+            nextCursor = encodeCursor(lastRes.getCreatedAt(), lastRes.getId());
+        }
+        return SearchPageDTO.<ReservationResponseDTO>builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    // Room of a reservation and the property it belongs to
+    private record BookedRoom(String propertyId, Room room) {}
+
+    /*
+     Resolves many rooms in one aggregation: the properties holding any of the rooms,
+     each projected to its id and to the matching rooms only ($filter on rooms.roomId).
+    */
+    private Map<String, BookedRoom> findBookedRooms(List<String> roomIds) {
+        Map<String, BookedRoom> rooms = new HashMap<>();
+        if (roomIds.isEmpty()) return rooms;
+
+        AggregationExpression bookedRoom = context -> new Document("$in", List.of("$$room.roomId", roomIds));
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("rooms.roomId").in(roomIds)),
+                Aggregation.project("_id")
+                        .and(ArrayOperators.Filter.filter("rooms").as("room").by(bookedRoom)).as("rooms"));
+
+        for (Property property : mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(Property.class), Property.class)) {
+            if (property.getRooms() == null) continue;
+            for (Room room : property.getRooms()) {
+                rooms.putIfAbsent(room.getId(), new BookedRoom(property.getId(), room));
+            }
+        }
+        return rooms;
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null || size < 1) return DEFAULT_PAGE_SIZE;
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    // Cursors are "createdAt|lastId" of the last reservation, Base64 encoded so clients treat them as opaque
+    // (createdAt is always set: on booking, and by ReservationCreatedAtMigration for older documents)
+    private String encodeCursor(LocalDateTime createdAt, String lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + "|" + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+            if (parts.length != 2 || parts[1].isEmpty()) throw new IllegalArgumentException();
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid reservations cursor.");
+        }
+    }
+
+    private LocalDateTime parseCursorTime(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid reservations cursor.");
+        }
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package largebeb.services;
 
+import largebeb.config.RatingStatsMigration;
 import largebeb.dto.ReviewRequestDTO;
 import largebeb.dto.ReviewResponseDTO;
 import largebeb.model.Property;
@@ -13,6 +14,14 @@ import largebeb.repository.UserRepository;
 import largebeb.utilities.JwtUtil; 
 import largebeb.utilities.RatingStats;
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -30,6 +39,12 @@ public class ReviewService {
     private final ReservationRepository reservationRepository;
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil; // Injected to handle Token logic
+    private final MongoTemplate mongoTemplate;
+    private final PropertyService propertyService; // Cached property details
+    private final RatingStatsMigration ratingStatsMigration;
+
+    // Size of the embedded latestReviews list of a property
+    private static final int LATEST_REVIEWS_SIZE = 10;
 
     // Customer create a review
     @Transactional
@@ -74,14 +89,17 @@ public class ReviewService {
              throw new SecurityException("You can only review your own reservations.");
         }
 
-        // Find Property immediately (needed to link propertyId)
-        Property property = propertyRepository.findByRoomsId(reservation.getRoomId())
-                .orElseThrow(() -> new IllegalArgumentException("Property not found for this room"));
+        // Property of the reservation (stored on it; looked up by room for reservations saved before it was)
+        String propertyId = reservation.getPropertyId() != null
+                ? reservation.getPropertyId()
+                : propertyRepository.findByRoomsId(reservation.getRoomId())
+                        .map(Property::getId)
+                        .orElseThrow(() -> new IllegalArgumentException("Property not found for this room"));
 
         // Create Review
         Review review = new Review();
         review.setReservationId(targetReservationId);
-        review.setPropertyId(property.getId()); // Store propertyId for performance
+        review.setPropertyId(propertyId); // Store propertyId for performance
         review.setCreationDate(LocalDate.now());
         review.setUserId(currentUser.getId());
         review.setReservationId(targetReservationId);
@@ -101,8 +119,14 @@ public class ReviewService {
 
         Review savedReview = reviewRepository.save(review);
 
-        // Update Property Stats and Latest Reviews
-        updateAndSavePropertyStats(property);
+        // Update Property Stats and Latest Reviews (delta of the new review only)
+        Update update = new Update().inc("ratingStats.totalReviews", 1);
+        incrementRatings(update, savedReview, 1);
+        update.push("latestReviews")
+                .sort(Sort.by(Sort.Direction.DESC, "creationDate"))
+                .slice(LATEST_REVIEWS_SIZE)
+                .each(savedReview);
+        updatePropertyStats(propertyId, update);
 
         return mapToDTO(savedReview);
     }
@@ -138,6 +162,14 @@ public class ReviewService {
         validatePartialRatings(request.getLocation());
         validatePartialRatings(request.getValue());
 
+        // Keep the previous ratings to compute the delta
+        Review previous = new Review();
+        previous.setRating(review.getRating());
+        previous.setCleanliness(review.getCleanliness());
+        previous.setCommunication(review.getCommunication());
+        previous.setLocation(review.getLocation());
+        previous.setValue(review.getValue());
+
         // Map only Customer Fields (Ignore managerReply)
         if (request.getText() != null) review.setText(request.getText());
         
@@ -150,8 +182,13 @@ public class ReviewService {
 
         Review updatedReview = reviewRepository.save(review);
 
-        // Update Property Stats and Latest Reviews
-        updatePropertyStatsByPropertyId(review.getPropertyId());
+        // Update Property Stats (old ratings out, new ones in) and the embedded copy if it is among the latest
+        Update update = new Update();
+        incrementRatings(update, previous, -1);
+        incrementRatings(update, updatedReview, 1);
+        update.set("latestReviews.$[r]", updatedReview)
+                .filterArray("r._id", new Document("$in", idValues(updatedReview.getId())));
+        updatePropertyStats(updatedReview.getPropertyId(), update);
 
         return mapToDTO(updatedReview);
     }
@@ -173,8 +210,11 @@ public class ReviewService {
         String propertyId = review.getPropertyId();
         reviewRepository.delete(review);
 
-        // Update Property Stats and Latest Reviews (Recalculate without the deleted review)
-        updatePropertyStatsByPropertyId(propertyId);
+        // Update Property Stats and Latest Reviews (remove the deleted review's contribution)
+        Update update = new Update().inc("ratingStats.totalReviews", -1);
+        incrementRatings(update, review, -1);
+        update.pull("latestReviews", new Document("_id", new Document("$in", idValues(review.getId()))));
+        updatePropertyStats(propertyId, update);
     }
 
     // Manager reply to review
@@ -207,9 +247,12 @@ public class ReviewService {
 
         Review updatedReview = reviewRepository.save(review);
 
-        // Update Property Stats and Latest Reviews 
-        // (Necessary because latestReviews is embedded in Property, so we need to update the reply text inside the Property document)
-        updateAndSavePropertyStats(property);
+        // Update the reply inside latestReviews (embedded in Property); ratings are unchanged
+        Update update = new Update().set("latestReviews.$[r].managerReply", replyText)
+                .inc("version", 1)
+                .filterArray("r._id", new Document("$in", idValues(reviewId)));
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(property.getId())), update, Property.class);
+        propertyService.evictPropertyDetails(property.getId());
 
         return mapToDTO(updatedReview);
     }
@@ -331,58 +374,63 @@ public class ReviewService {
         return rating < 1.0 || rating > 5.0;
     } 
 
-    private void updatePropertyStatsByPropertyId(String propertyId) {
-        Property property = propertyRepository.findById(propertyId)
-                .orElseThrow(() -> new IllegalArgumentException("Property not found during stats update"));
-        updateAndSavePropertyStats(property);
-    }
-
-    private void updateAndSavePropertyStats(Property property) {
-        // Fetch all reviews for this property
-        List<Review> reviews = reviewRepository.findByPropertyId(property.getId());
-
-        if (reviews.isEmpty()) {
-            // Reset stats if no reviews exist
-            if (property.getRatingStats() != null) {
-                property.getRatingStats().setCleanliness(0.0);
-                property.getRatingStats().setCommunication(0.0);
-                property.getRatingStats().setLocation(0.0);
-                property.getRatingStats().setValue(0.0);
-            }
-            // Clear latest reviews
-            property.setLatestReviews(new ArrayList<>());
+    /*
+     Applies a review write to the property in O(1), whatever the number of reviews:
+     the update carries the $inc of the running sums and the latestReviews change,
+     then the averages are recomputed server-side from the sums (idempotent, so
+     concurrent review writes always converge to the current sums).
+     A property whose sums have not been backfilled yet has its sums recomputed from
+     the reviews instead, since the $inc only applied to whatever partial sums it had.
+    */
+    private void updatePropertyStats(String propertyId, Update update) {
+        Query byId = Query.query(Criteria.where("_id").is(propertyId));
+        byId.fields().include("ratingStats.totalReviews", "ratingStats.sumsBackfilled", "latestReviews._id");
+
+        update.inc("version", 1);
+        Property property = mongoTemplate.findAndModify(byId, update,
+                FindAndModifyOptions.options().returnNew(true), Property.class);
+        if (property == null) {
+            throw new IllegalArgumentException("Property not found during stats update");
+        }
+        if (property.getRatingStats() != null && Boolean.TRUE.equals(property.getRatingStats().getSumsBackfilled())) {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(propertyId)),
+                    RatingStats.recomputeAverages(), Property.class);
         } else {
-            // Calculate Averages
-            double avgClean = reviews.stream().mapToDouble(Review::getCleanliness).average().orElse(0.0);
-            double avgComm = reviews.stream().mapToDouble(Review::getCommunication).average().orElse(0.0);
-            double avgLoc = reviews.stream().mapToDouble(Review::getLocation).average().orElse(0.0);
-            double avgVal = reviews.stream().mapToDouble(Review::getValue).average().orElse(0.0);
-
-            // Ensure ratingStats object exists
-            if (property.getRatingStats() == null) {
-                 property.setRatingStats(new RatingStats());
-            }
-            
-            property.getRatingStats().setCleanliness(round(avgClean));
-            property.getRatingStats().setCommunication(round(avgComm));
-            property.getRatingStats().setLocation(round(avgLoc));
-            property.getRatingStats().setValue(round(avgVal));
-            
-            // Update Latest Reviews (Top 10 sorted by creationDate descending)
-            List<Review> latestReviews = reviews.stream()
-                    .sorted(Comparator.comparing(Review::getCreationDate).reversed())
-                    .limit(10)
-                    .collect(Collectors.toList());
+            ratingStatsMigration.recomputeRatingSums(propertyId);
+        }
 
-            property.setLatestReviews(latestReviews);
+        // A deleted review left a gap in latestReviews: refill it with the next most recent ones
+        long totalReviews = property.getRatingStats() != null && property.getRatingStats().getTotalReviews() != null
+                ? property.getRatingStats().getTotalReviews() : 0;
+        int latest = property.getLatestReviews() != null ? property.getLatestReviews().size() : 0;
+        if (latest < Math.min(totalReviews, LATEST_REVIEWS_SIZE)) {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(propertyId)),
+                    new Update().set("latestReviews", reviewRepository.findTop10ByPropertyIdOrderByCreationDateDesc(propertyId)),
+                    Property.class);
         }
+        propertyService.evictPropertyDetails(propertyId);
+        propertyService.evictTopRatedProperties();
+    }
+
+    // Adds (sign = 1) or removes (sign = -1) the ratings of a review from the running sums
+    private void incrementRatings(Update update, Review review, int sign) {
+        update.inc("ratingStats.ratingSum", sign * (review.getRating() != null ? review.getRating().doubleValue() : 0.0))
+                .inc("ratingStats.cleanlinessSum", sign * valueOrZero(review.getCleanliness()))
+                .inc("ratingStats.communicationSum", sign * valueOrZero(review.getCommunication()))
+                .inc("ratingStats.locationSum", sign * valueOrZero(review.getLocation()))
+                .inc("ratingStats.valueSum", sign * valueOrZero(review.getValue()));
+    }
 
-        // Save Property Document
-        propertyRepository.save(property);
+    private double valueOrZero(Double value) {
+        return value != null ? value : 0.0;
     }
 
-    private double round(double value) {
-        return Math.round(value * 10.0) / 10.0;
+    // Embedded reviews may hold their id as ObjectId or as plain string
+    private List<Object> idValues(String id) {
+        List<Object> ids = new ArrayList<>();
+        ids.add(id);
+        if (ObjectId.isValid(id)) ids.add(new ObjectId(id));
+        return ids;
     }
 
     private RegisteredUser getUserFromToken(String token) {
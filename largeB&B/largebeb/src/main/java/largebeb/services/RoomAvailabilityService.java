@@ -0,0 +1,368 @@
+package largebeb.services;
+
+import jakarta.annotation.PostConstruct;
+import largebeb.model.Reservation;
+import largebeb.repository.ReservationRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * In-memory availability engine.
+ *
+ * Keeps, for every room, the calendar of non-cancelled reservations that have
+ * not ended yet, so overlap checks and "free between checkIn and checkOut"
+ * filters are answered in-process instead of querying MongoDB per room.
+ *
+ * The calendars are warmed from the reservations collection and kept current
+ * by the confirm, modify and cancel paths. Every change is also broadcast on a
+ * Redis channel so the other application nodes apply it too. Pub/sub is
+ * fire-and-forget: changes published while this node was not subscribed
+ * (listener or Sentinel reconnect) are lost, so every (re)subscription to the
+ * channel warms the calendars again. Until a warm-up completes, callers check
+ * MongoDB. Stays that have ended are swept every hour.
+ * Pending payment holds stay in Redis (see RoomHoldService), where they are
+ * shared by all nodes and checked atomically.
+ */
+@Service
+@RequiredArgsConstructor
+public class RoomAvailabilityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomAvailabilityService.class);
+
+    private static final String AVAILABILITY_CHANNEL = "availability_events";
+    private static final String EVENT_BOOKED = "BOOKED";
+    private static final String EVENT_RELEASED = "RELEASED";
+
+    private final MongoTemplate mongoTemplate;
+    private final ReservationRepository reservationRepository;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    // Replaced as a whole by every warm-up
+    private volatile Map<String, RoomCalendar> calendars = new ConcurrentHashMap<>();
+    // Room of every reservation in the calendars, so a release touches only that calendar
+    private volatile Map<String, String> roomByReservation = new ConcurrentHashMap<>();
+
+    // False until a warm-up completed: callers fall back to MongoDB meanwhile
+    private volatile boolean ready = false;
+    // Bumped on every (re)subscription: a warm-up started before it may have missed changes
+    private final AtomicLong subscriptions = new AtomicLong();
+
+    // Guards every change to the calendars, and the queue of changes received during a warm-up
+    private final Object changeLock = new Object();
+    // Non-null while a warm-up runs: changes are queued and replayed on the new calendars
+    private List<Runnable> pendingChanges;
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(new AvailabilityListener(), new ChannelTopic(AVAILABILITY_CHANNEL));
+    }
+
+    // Startup warm-up, in case the subscription one has not run (it is skipped if it has)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        warmUp(false);
+    }
+
+    /*
+     Loads every reservation that still blocks its room (not cancelled, check-out in the future)
+     into new calendars, swapped in once complete. Only roomId, status and dates are fetched and
+     documents are streamed from a cursor. Changes received meanwhile are queued and replayed
+     after the stream: a release of a reservation the cursor had not returned yet would otherwise
+     be a no-op, and the cursor would then add the stale booking.
+    */
+    private synchronized void warmUp(boolean force) {
+        if (ready && !force) return;
+        long subscription = subscriptions.get();
+        synchronized (changeLock) {
+            pendingChanges = new ArrayList<>();
+        }
+
+        Map<String, RoomCalendar> freshCalendars = new ConcurrentHashMap<>();
+        Map<String, String> freshRooms = new ConcurrentHashMap<>();
+        Query query = new Query(Criteria.where("status").nin("CANCELLED", "cancelled")
+                .and("dates.checkOut").gt(LocalDate.now()));
+        query.fields().include("roomId", "status", "dates");
+
+        long loaded = 0;
+        boolean complete = false;
+        try (Stream<Reservation> reservations = mongoTemplate.stream(query, Reservation.class)) {
+            for (Reservation res : (Iterable<Reservation>) reservations::iterator) {
+                if (applyBooking(freshCalendars, freshRooms, res.getId(), res.getRoomId(), res.getDates())) {
+                    loaded++;
+                }
+            }
+            complete = true;
+        } catch (Exception e) {
+            logger.error("Availability engine warm-up failed, falling back to MongoDB checks: {}", e.getMessage());
+        }
+
+        synchronized (changeLock) {
+            if (complete) {
+                calendars = freshCalendars;
+                roomByReservation = freshRooms;
+            }
+            // Queued changes go to the new calendars, or to the current ones if the warm-up failed
+            pendingChanges.forEach(Runnable::run);
+            pendingChanges = null;
+            // A resubscription during the warm-up queued another one: keep checking MongoDB until it is done
+            ready = complete && subscription == subscriptions.get();
+        }
+        if (complete) {
+            logger.info("Availability engine warmed with {} reservations on {} rooms.", loaded, freshCalendars.size());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // True if no reservation of the room overlaps [checkIn, checkOut)
+    public boolean isAvailable(String roomId, LocalDate checkIn, LocalDate checkOut) {
+        return isAvailable(roomId, checkIn, checkOut, null);
+    }
+
+    // Same as above, ignoring one reservation (the one being modified)
+    public boolean isAvailable(String roomId, LocalDate checkIn, LocalDate checkOut, String ignoredReservationId) {
+        RoomCalendar calendar = calendars.get(roomId);
+        return calendar == null || !calendar.overlaps(checkIn.toEpochDay(), checkOut.toEpochDay(), ignoredReservationId);
+    }
+
+    // Returns the subset of the given rooms that is free for the whole stay
+    public Set<String> findAvailableRooms(Collection<String> roomIds, LocalDate checkIn, LocalDate checkOut) {
+        Set<String> available = new HashSet<>();
+        if (roomIds.isEmpty()) {
+            return available;
+        }
+        if (!ready) {
+            // Not warmed up yet: one MongoDB aggregation for all the candidate rooms
+            available.addAll(roomIds);
+            reservationRepository.findBookedRoomIds(new ArrayList<>(roomIds), checkIn, checkOut)
+                    .forEach(available::remove);
+            return available;
+        }
+        for (String roomId : roomIds) {
+            if (isAvailable(roomId, checkIn, checkOut)) {
+                available.add(roomId);
+            }
+        }
+        return available;
+    }
+
+    // Registers a confirmed (or modified) reservation locally and on the other nodes
+    public void recordBooking(Reservation res) {
+        Reservation.ReservationDates dates = res.getDates();
+        applyChange(() -> applyBooking(calendars, roomByReservation, res.getId(), res.getRoomId(), dates));
+        publish(EVENT_BOOKED, res);
+    }
+
+    // Frees the dates of a cancelled reservation locally and on the other nodes
+    public void removeBooking(Reservation res) {
+        applyChange(() -> applyRelease(calendars, roomByReservation, res.getId()));
+        publish(EVENT_RELEASED, res);
+    }
+
+    /*
+     Drops the stays that have ended, so the calendars only hold the current and future ones.
+     Skipped while a warm-up runs: it only loads stays that have not ended.
+    */
+    @Scheduled(initialDelay = 3600000, fixedDelay = 3600000)
+    public void pruneEndedStays() {
+        long today = LocalDate.now().toEpochDay();
+        long pruned = 0;
+        synchronized (changeLock) {
+            if (pendingChanges != null) return;
+            Iterator<Map.Entry<String, RoomCalendar>> rooms = calendars.entrySet().iterator();
+            while (rooms.hasNext()) {
+                RoomCalendar calendar = rooms.next().getValue();
+                List<String> ended = calendar.removeEndedBy(today);
+                ended.forEach(roomByReservation::remove);
+                pruned += ended.size();
+                if (calendar.isEmpty()) {
+                    rooms.remove();
+                }
+            }
+        }
+        if (pruned > 0) {
+            logger.info("Availability engine pruned {} ended stays.", pruned);
+        }
+    }
+
+    // HELPER METHODS
+
+    // Applies a change to the calendars now, or after the running warm-up
+    private void applyChange(Runnable change) {
+        synchronized (changeLock) {
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            } else {
+                change.run();
+            }
+        }
+    }
+
+    private static boolean applyBooking(Map<String, RoomCalendar> calendars, Map<String, String> roomByReservation,
+                                        String reservationId, String roomId, Reservation.ReservationDates dates) {
+        if (reservationId == null || roomId == null || dates == null
+                || dates.getCheckIn() == null || dates.getCheckOut() == null) {
+            return false;
+        }
+        // A modification may move the reservation to another room
+        applyRelease(calendars, roomByReservation, reservationId);
+        calendars.computeIfAbsent(roomId, id -> new RoomCalendar())
+                .add(reservationId, dates.getCheckIn().toEpochDay(), dates.getCheckOut().toEpochDay());
+        roomByReservation.put(reservationId, roomId);
+        return true;
+    }
+
+    private static void applyRelease(Map<String, RoomCalendar> calendars, Map<String, String> roomByReservation,
+                                     String reservationId) {
+        String roomId = roomByReservation.remove(reservationId);
+        if (roomId == null) return;
+        RoomCalendar calendar = calendars.get(roomId);
+        if (calendar != null) {
+            calendar.remove(reservationId);
+        }
+    }
+
+    private void publish(String type, Reservation res) {
+        try {
+            // HashMap (non-final) keeps its type through the default-typing serializer
+            HashMap<String, String> event = new HashMap<>();
+            event.put("type", type);
+            event.put("reservationId", res.getId());
+            event.put("roomId", res.getRoomId());
+            event.put("checkIn", res.getDates().getCheckIn().toString());
+            event.put("checkOut", res.getDates().getCheckOut().toString());
+            redisTemplate.convertAndSend(AVAILABILITY_CHANNEL, event);
+        } catch (Exception e) {
+            logger.error("Redis error (Availability event {} for {}): {}", type, res.getId(), e.getMessage());
+        }
+    }
+
+    // Changes made on any node (our own events are applied again, idempotently), and a warm-up on every (re)subscription
+    private final class AvailabilityListener implements MessageListener, SubscriptionListener {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onMessage(Message message, byte[] pattern) {
+            try {
+                Map<String, String> event = (Map<String, String>) redisTemplate.getValueSerializer().deserialize(message.getBody());
+                if (event == null) return;
+
+                String reservationId = event.get("reservationId");
+                if (EVENT_BOOKED.equals(event.get("type"))) {
+                    Reservation.ReservationDates dates = new Reservation.ReservationDates(
+                            LocalDate.parse(event.get("checkIn")), LocalDate.parse(event.get("checkOut")));
+                    String roomId = event.get("roomId");
+                    applyChange(() -> applyBooking(calendars, roomByReservation, reservationId, roomId, dates));
+                } else if (EVENT_RELEASED.equals(event.get("type"))) {
+                    applyChange(() -> applyRelease(calendars, roomByReservation, reservationId));
+                }
+            } catch (Exception e) {
+                logger.error("Could not apply availability event: {}", e.getMessage());
+            }
+        }
+
+        @Override
+        public void onChannelSubscribed(byte[] channel, long count) {
+            subscriptions.incrementAndGet();
+            ready = false;
+            // Off the subscription thread: the warm-up streams the reservations collection
+            CompletableFuture.runAsync(() -> warmUp(true));
+        }
+    }
+
+    /*
+     Calendar of one room: stays ordered by check-in day.
+     The longest stay bounds how far back an overlapping stay can start,
+     so an overlap check only walks the stays in [checkIn - longestStay, checkOut).
+    */
+    static final class RoomCalendar {
+
+        private record Stay(long checkIn, long checkOut, String reservationId) {}
+
+        private final NavigableSet<Stay> stays = new TreeSet<>((a, b) -> {
+            int byDate = Long.compare(a.checkIn(), b.checkIn());
+            return byDate != 0 ? byDate : a.reservationId().compareTo(b.reservationId());
+        });
+        private final Map<String, Stay> byReservationId = new HashMap<>();
+        private long longestStay = 0;
+
+        synchronized void add(String reservationId, long checkIn, long checkOut) {
+            Stay stay = new Stay(checkIn, checkOut, reservationId);
+            stays.add(stay);
+            byReservationId.put(reservationId, stay);
+            longestStay = Math.max(longestStay, checkOut - checkIn);
+        }
+
+        synchronized boolean remove(String reservationId) {
+            Stay stay = byReservationId.remove(reservationId);
+            if (stay == null) return false;
+            stays.remove(stay);
+            return true;
+        }
+
+        // Removes the stays whose check-out is on or before the given day, returning their reservation ids
+        synchronized List<String> removeEndedBy(long day) {
+            List<String> ended = new ArrayList<>();
+            Iterator<Stay> it = stays.iterator();
+            while (it.hasNext()) {
+                Stay stay = it.next();
+                if (stay.checkOut() <= day) {
+                    it.remove();
+                    byReservationId.remove(stay.reservationId());
+                    ended.add(stay.reservationId());
+                }
+            }
+            return ended;
+        }
+
+        synchronized boolean isEmpty() {
+            return stays.isEmpty();
+        }
+
+        synchronized boolean overlaps(long checkIn, long checkOut, String ignoredReservationId) {
+            // Stays starting before the requested check-out, latest first
+            for (Stay stay : stays.headSet(new Stay(checkOut, checkOut, ""), false).descendingSet()) {
+                if (stay.checkIn() + longestStay <= checkIn) {
+                    break; // Every remaining stay ends before the requested check-in
+                }
+                if (stay.checkOut() > checkIn && !stay.reservationId().equals(ignoredReservationId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
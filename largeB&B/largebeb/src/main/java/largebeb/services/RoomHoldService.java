@@ -0,0 +1,124 @@
+package largebeb.services;
+
+import largebeb.model.Reservation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Temporary room holds ("temp_res:") created while a customer is paying.
+ *
+ * Every hold is also indexed in a per-room sorted set ("room_holds:{roomId}")
+ * scored by check-in epoch day, with members "holdId|checkOutEpochDay".
+ * Placing a hold is a single Lua script that checks the room's pending holds
+ * and inserts the new one atomically, so two customers can never both lock
+ * the same room and dates.
+ */
+@Service
+@RequiredArgsConstructor
+public class RoomHoldService {
+
+    private static final String HOLD_PREFIX = "temp_res:";
+    private static final String ROOM_INDEX_PREFIX = "room_holds:";
+    private static final long HOLD_TTL_MINUTES = 15;
+
+    // Return code of the hold script on success (0 = conflicting hold)
+    private static final long HOLD_PLACED = 1L;
+
+    /*
+     KEYS[1] = room index, KEYS[2] = hold key
+     ARGV[1] = hold id, ARGV[2] = checkIn epoch day, ARGV[3] = checkOut epoch day,
+     ARGV[4] = TTL in seconds, ARGV[5] = serialized hold, ARGV[6] = hold key prefix
+     Hold keys of other holds are built from ARGV[6]: fine on our Sentinel setup,
+     it would need hash tags on Redis Cluster.
+    */
+    private static final RedisScript<Long> PLACE_HOLD_SCRIPT = new DefaultRedisScript<>("""
+            local candidates = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', '(' .. ARGV[3])
+            for _, member in ipairs(candidates) do
+                local sep = string.find(member, '|', 1, true)
+                local holdId = string.sub(member, 1, sep - 1)
+                local holdCheckOut = tonumber(string.sub(member, sep + 1))
+                if redis.call('EXISTS', ARGV[6] .. holdId) == 0 then
+                    redis.call('ZREM', KEYS[1], member)
+                elseif holdCheckOut > tonumber(ARGV[2]) then
+                    return 0
+                end
+            end
+            redis.call('SET', KEYS[2], ARGV[5], 'EX', ARGV[4])
+            redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1] .. '|' .. ARGV[3])
+            redis.call('EXPIRE', KEYS[1], ARGV[4])
+            return 1
+            """, Long.class);
+
+    /*
+     KEYS[1] = room index, KEYS[2] = hold key
+     ARGV[1] = index member of the hold
+    */
+    private static final RedisScript<Long> RELEASE_HOLD_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('ZREM', KEYS[1], ARGV[1])
+            return redis.call('DEL', KEYS[2])
+            """, Long.class);
+
+    // Script arguments: plain strings, except the serialized hold which is passed as raw bytes
+    private static final RedisSerializer<Object> ARGS_SERIALIZER = new RedisSerializer<>() {
+        @Override
+        public byte[] serialize(Object value) {
+            return value instanceof byte[] bytes ? bytes : String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Object deserialize(byte[] bytes) {
+            return bytes;
+        }
+    };
+    private static final RedisSerializer<Long> RESULT_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    /*
+     Atomically checks the pending holds of the room and stores the new one.
+     Returns false if another live hold overlaps the requested dates.
+     One round trip regardless of how many holds exist.
+    */
+    public boolean tryPlaceHold(Reservation hold) {
+        LocalDate checkIn = hold.getDates().getCheckIn();
+        LocalDate checkOut = hold.getDates().getCheckOut();
+
+        // Same bytes the RedisTemplate would write, so getHold() can read it back
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        byte[] payload = valueSerializer.serialize(hold);
+
+        Long result = redisTemplate.execute(PLACE_HOLD_SCRIPT, ARGS_SERIALIZER, RESULT_SERIALIZER,
+                List.of(ROOM_INDEX_PREFIX + hold.getRoomId(), HOLD_PREFIX + hold.getId()),
+                hold.getId(),
+                String.valueOf(checkIn.toEpochDay()),
+                String.valueOf(checkOut.toEpochDay()),
+                String.valueOf(TimeUnit.MINUTES.toSeconds(HOLD_TTL_MINUTES)),
+                payload,
+                HOLD_PREFIX);
+
+        return result != null && result == HOLD_PLACED;
+    }
+
+    // Returns the hold or null if it expired or never existed
+    public Reservation getHold(String tempReservationId) {
+        return (Reservation) redisTemplate.opsForValue().get(HOLD_PREFIX + tempReservationId);
+    }
+
+    // Deletes the hold and its index entry in one script call
+    public void releaseHold(String tempReservationId, String roomId, LocalDate checkOut) {
+        redisTemplate.execute(RELEASE_HOLD_SCRIPT, ARGS_SERIALIZER, RESULT_SERIALIZER,
+                List.of(ROOM_INDEX_PREFIX + roomId, HOLD_PREFIX + tempReservationId),
+                tempReservationId + "|" + checkOut.toEpochDay());
+    }
+}
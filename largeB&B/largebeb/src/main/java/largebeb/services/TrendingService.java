@@ -0,0 +1,108 @@
+package largebeb.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sliding-window trending on hourly buckets.
+ *
+ * Views are added (by ViewCounterService) to one sorted set per hour,
+ * "trending:h:{epochHour}", plus one per hour and city, each expiring after the
+ * longest window. A ranking merges the buckets of the window with ZUNIONSTORE,
+ * weighting them by age (exponential decay, and the oldest bucket by the part of
+ * it still inside the window). The merged set is kept for a short time and
+ * shared by every node, so memory is bounded by the window and a read costs at
+ * most one merge of a fixed number of buckets.
+ */
+@Service
+@RequiredArgsConstructor
+public class TrendingService {
+
+    private static final String BUCKET_PREFIX = "trending:h:";
+    private static final String MERGED_PREFIX = "trending:merged:";
+    private static final String CITY_SEGMENT = ":city:";
+
+    // Buckets live as long as the longest window (plus the bucket being filled)
+    private static final long BUCKET_TTL_HOURS = Window.WEEK.hours + 2;
+    private static final long MERGED_TTL_SECONDS = 60;
+
+    public enum Window {
+        HOUR("1h", 1),
+        DAY("24h", 24),
+        WEEK("7d", 168);
+
+        private final String label;
+        private final int hours;
+
+        Window(String label, int hours) {
+            this.label = label;
+            this.hours = hours;
+        }
+
+        public static Window parse(String label) {
+            for (Window window : values()) {
+                if (window.label.equalsIgnoreCase(label)) return window;
+            }
+            throw new IllegalArgumentException("Unknown trending window: " + label + " (use 1h, 24h or 7d)");
+        }
+    }
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    // Ids of the most viewed properties of the window, best first (cityKey null = all cities)
+    public List<String> topPropertyIds(Window window, String cityKey, int limit) {
+        String mergedKey = MERGED_PREFIX + window.label + (cityKey != null ? CITY_SEGMENT + cityKey : "");
+
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(mergedKey))) {
+            merge(window, cityKey, mergedKey);
+        }
+
+        Set<Object> top = redisTemplate.opsForZSet().reverseRange(mergedKey, 0, limit - 1);
+        List<String> ids = new ArrayList<>();
+        if (top != null) top.forEach(id -> ids.add(id.toString()));
+        return ids;
+    }
+
+    public static long currentHour() {
+        return Instant.now().getEpochSecond() / 3600;
+    }
+
+    public static String bucketKey(long epochHour, String cityKey) {
+        return BUCKET_PREFIX + epochHour + (cityKey != null ? CITY_SEGMENT + cityKey : "");
+    }
+
+    public static long bucketTtlSeconds() {
+        return TimeUnit.HOURS.toSeconds(BUCKET_TTL_HOURS);
+    }
+
+    // HELPER METHODS
+
+    private void merge(Window window, String cityKey, String mergedKey) {
+        long now = Instant.now().getEpochSecond();
+        long hour = now / 3600;
+        double elapsedInHour = (now % 3600) / 3600.0;
+
+        // Current (partial) hour plus the previous `hours` buckets; the oldest one only partly in the window
+        List<String> keys = new ArrayList<>();
+        double[] weights = new double[window.hours + 1];
+        for (int age = 0; age <= window.hours; age++) {
+            keys.add(bucketKey(hour - age, cityKey));
+            double weight = Math.pow(0.5, (double) age / window.hours);
+            weights[age] = age == window.hours ? weight * (1 - elapsedInHour) : weight;
+        }
+
+        redisTemplate.opsForZSet().unionAndStore(keys.get(0), keys.subList(1, keys.size()), mergedKey,
+                Aggregate.SUM, Weights.of(weights));
+        redisTemplate.expire(mergedKey, Duration.ofSeconds(MERGED_TTL_SECONDS));
+    }
+}
@@ -0,0 +1,41 @@
+package largebeb.services;
+
+import largebeb.dto.UserIdentityDTO;
+import largebeb.model.RegisteredUser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+/**
+ * Identity (id, role, email) of the users making requests.
+ *
+ * Cached in the "userIdentities" cache: each node serves it from its L1, so the
+ * authentication filter and the role checks of the services no longer read the
+ * user from MongoDB on every request. Entries are short-lived (see RedisConfig)
+ * and evicted on every node when the account is deleted or changed.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserIdentityService {
+
+    private final MongoTemplate mongoTemplate;
+
+    // Null if the user does not exist (anymore)
+    @Cacheable(value = "userIdentities", key = "#userId", sync = true)
+    public UserIdentityDTO getIdentity(String userId) {
+        Query query = new Query(Criteria.where("_id").is(userId));
+        // _class picks the concrete subtype (RegisteredUser is abstract)
+        query.fields().include("role", "email", "_class");
+        RegisteredUser user = mongoTemplate.findOne(query, RegisteredUser.class);
+        return user != null ? new UserIdentityDTO(user.getId(), user.getRole(), user.getEmail()) : null;
+    }
+
+    // To be called after deleting a user or changing its role or email
+    @CacheEvict(value = "userIdentities", key = "#userId")
+    public void evict(String userId) {
+    }
+}
@@ -0,0 +1,117 @@
+package largebeb.services;
+
+import jakarta.annotation.PreDestroy;
+import largebeb.utilities.SearchKeys;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Property view counting for the trending ranking (hourly buckets, see TrendingService).
+ *
+ * Every detail view increments a lock-free per-node counter; the counters are
+ * flushed to Redis every few hundred milliseconds as one pipelined batch of
+ * ZINCRBY (global and city bucket of the current hour), so the cost is one
+ * round trip per interval instead of one per view.
+ */
+@Service
+@RequiredArgsConstructor
+public class ViewCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ViewCounterService.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    // A viewed property and its normalized city (null if unknown)
+    private record ViewKey(String propertyId, String cityKey) {}
+
+    private final Map<ViewKey, LongAdder> pendingViews = new ConcurrentHashMap<>();
+
+    public void recordView(String propertyId, String city) {
+        ViewKey view = new ViewKey(propertyId, SearchKeys.city(city));
+        LongAdder counter = pendingViews.computeIfAbsent(view, k -> new LongAdder());
+        counter.increment();
+        // flush() dropped the counter as idle between the lookup and the increment: count the view again on the live one
+        // (under the map's lock, so this increment cannot be orphaned too)
+        if (pendingViews.get(view) != counter) {
+            pendingViews.compute(view, (k, live) -> {
+                LongAdder adder = live != null ? live : new LongAdder();
+                adder.increment();
+                return adder;
+            });
+        }
+    }
+
+    /*
+     Sends the views counted since the last flush.
+     Counters idle for a whole interval are dropped so the map only holds recently viewed properties;
+     the drop re-checks the counter under the map's lock, and recordView() recounts a view that
+     landed on a counter dropped in the meantime.
+     If Redis is unreachable the counts are put back and retried at the next flush.
+    */
+    @Scheduled(fixedDelay = 250)
+    public void flush() {
+        Map<ViewKey, Long> batch = new HashMap<>();
+        pendingViews.forEach((view, counter) -> {
+            long views = counter.sumThenReset();
+            if (views > 0) {
+                batch.put(view, views);
+            } else {
+                pendingViews.computeIfPresent(view, (k, c) -> c == counter && c.sum() == 0 ? null : c);
+            }
+        });
+        if (batch.isEmpty()) return;
+
+        try {
+            // Same serializers as opsForZSet(), so members match the ones read by TrendingService
+            @SuppressWarnings("unchecked")
+            RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+            @SuppressWarnings("unchecked")
+            RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+            long hour = TrendingService.currentHour();
+            byte[] globalBucket = keySerializer.serialize(TrendingService.bucketKey(hour, null));
+            Set<String> cityBuckets = new HashSet<>();
+
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                batch.forEach((view, views) -> {
+                    byte[] member = valueSerializer.serialize(view.propertyId());
+                    connection.zSetCommands().zIncrBy(globalBucket, views, member);
+                    if (view.cityKey() != null) {
+                        String cityBucket = TrendingService.bucketKey(hour, view.cityKey());
+                        cityBuckets.add(cityBucket);
+                        connection.zSetCommands().zIncrBy(keySerializer.serialize(cityBucket), views, member);
+                    }
+                });
+                // Buckets disappear once older than the longest window
+                connection.keyCommands().expire(globalBucket, TrendingService.bucketTtlSeconds());
+                cityBuckets.forEach(bucket ->
+                        connection.keyCommands().expire(keySerializer.serialize(bucket), TrendingService.bucketTtlSeconds()));
+                return null;
+            });
+        } catch (Exception e) {
+            logger.error("Redis error (Trending flush of {} properties): {}", batch.size(), e.getMessage());
+            batch.forEach((view, views) -> pendingViews.compute(view, (k, live) -> {
+                LongAdder adder = live != null ? live : new LongAdder();
+                adder.add(views);
+                return adder;
+            }));
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,52 @@
+package largebeb.utilities;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over 128-bit hashes (e.g. the first bytes of a SHA-256 digest).
+ *
+ * mightContain() never returns false for an added value; it returns true for a value
+ * never added with about the false positive rate given at construction, as long as
+ * no more than the expected number of values were added. Values cannot be removed:
+ * the owner rebuilds the filter to drop them.
+ * Adds and reads are lock-free and safe from any thread.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashes;
+
+    public BloomFilter(int expectedEntries, double falsePositiveRate) {
+        long m = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.numBits = Math.max(64, (m + 63) / 64 * 64);
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedEntries * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (numBits / 64));
+    }
+
+    public void add(long hash1, long hash2) {
+        for (int i = 0; i < numHashes; i++) {
+            long bit = bitIndex(hash1, hash2, i);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((bits.get(word) & mask) == 0) {
+                bits.getAndAccumulate(word, mask, (current, m) -> current | m);
+            }
+        }
+    }
+
+    public boolean mightContain(long hash1, long hash2) {
+        for (int i = 0; i < numHashes; i++) {
+            long bit = bitIndex(hash1, hash2, i);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Double hashing (Kirsch-Mitzenmacher): the i-th index is hash1 + i * hash2
+    private long bitIndex(long hash1, long hash2, int i) {
+        return Math.floorMod(hash1 + i * hash2, numBits);
+    }
+}
@@ -0,0 +1,22 @@
+package largebeb.utilities;
+
+import java.security.Principal;
+
+/**
+ * Claims of a verified JWT, set as the principal of the request's Authentication
+ * by JwtAuthenticationFilter. The token is verified once per request: later
+ * reads of the same token (JwtUtil.getUserIdFromToken, ...) use these claims.
+ *
+ * getName() is the email, as the principal was before.
+ */
+public record JwtPrincipal(String userId, String email, String username, long expiresAt) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public boolean isExpired() {
+        return expiresAt <= System.currentTimeMillis();
+    }
+}
@@ -2,26 +2,38 @@ package largebeb.utilities;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
-import java.util.concurrent.TimeUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value; // Importante!
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
 
 /*
  Utility class for handling JSON Web Tokens (JWT).
  Responsible for generating, validating, and parsing tokens, 
- as well as handling token blacklisting via Redis.
+ as well as handling token blacklisting (see TokenBlacklist).
+ The signing key and the parser are built once at startup. A token is verified
+ once per request (the filter keeps its claims in the SecurityContext); tokens
+ read outside that request are remembered by digest, so repeated reads of the
+ same token skip the HMAC check and the JSON parsing.
 */
 @Component
 public class JwtUtil {
@@ -38,7 +50,27 @@ public class JwtUtil {
     private long expirationTime;
 
     @Autowired
-    private StringRedisTemplate redisTemplate;
+    private TokenBlacklist tokenBlacklist;
+
+    // Recently verified tokens, by SHA-256 digest of the token
+    private static final int VERIFIED_CACHE_SIZE = 1024;
+
+    private Key signingKey;
+    private JwtParser parser;
+
+    private final Map<String, JwtPrincipal> verifiedTokens = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, JwtPrincipal> eldest) {
+                    return size() > VERIFIED_CACHE_SIZE;
+                }
+            });
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
 
     // Removes the "Bearer " prefix from the token string if it exists
     private String cleanToken(String token) {
@@ -60,30 +92,24 @@ public class JwtUtil {
                 .claim("username", username)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expirationTime)) // Usa la variabile iniettata
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     // Extracts the email (Subject) from the token
     public String getEmailFromToken(String token) {
         // Remove "Bearer " prefix if present to ensure the token is valid for parsing
-        String cleanedToken = cleanToken(token);
-        return getClaims(cleanedToken).getSubject();
+        return parseToken(token).email();
     }
 
     // Extract the userId from the body
     public String getUserIdFromToken(String token) {
-        // Remove "Bearer " prefix if present to ensure the token is valid for parsing
-        String cleanedToken = cleanToken(token);
-        
-        // Retrieve the body (payload) of the token and get the "userId" claim
-        return getClaims(cleanedToken).get("userId", String.class);
+        return parseToken(token).userId();
     }
 
     // Extracts the username custom claim from the token.
     public String getUsernameFromToken(String token) {
-        String cleanedToken = cleanToken(token);
-        return getClaims(cleanedToken).get("username", String.class);
+        return parseToken(token).username();
     }
 
     /*
@@ -92,21 +118,27 @@ public class JwtUtil {
      and confirms it has not been blacklisted in Redis.
     */
     public boolean validateToken(String token) {
+        return authenticate(token) != null;
+    }
+
+    /*
+     Same checks as validateToken, returning the claims of the token (null if not valid).
+     Used by the filter to verify the token once per request: the token is verified
+     directly, without the verified-tokens map (the request keeps the claims in the
+     SecurityContext), and its digest is computed once, for the blacklist.
+    */
+    public JwtPrincipal authenticate(String token) {
         try {
             String cleanedToken = cleanToken(token);
+            JwtPrincipal principal = verify(cleanedToken);
 
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(cleanedToken);
-            
-            if (isTokenBlacklisted(cleanedToken)) {
+            if (isTokenBlacklisted(digest(cleanedToken))) {
                 System.out.println("DEBUG: Token is in Redis Blacklist.");
-                return false;
+                return null;
             }
-            
-            return true;
-            
+
+            return principal;
+
         } catch (SignatureException e) {
             System.out.println("DEBUG: Invalid JWT Signature: " + e.getMessage());
         } catch (MalformedJwtException e) {
@@ -116,7 +148,7 @@ public class JwtUtil {
         } catch (Exception e) {
             System.out.println("DEBUG: Generic Token Validation Error: " + e.getMessage());
         }
-        return false;
+        return null;
     }
 
     /*
@@ -127,14 +159,15 @@ public class JwtUtil {
         try {
             String cleanedToken = cleanToken(token);
             
-            Claims claims = getClaims(cleanedToken);
-            long tokenExpiration = claims.getExpiration().getTime(); // Rinomino per chiarezza vs variabile di classe
+            long tokenExpiration = parseToken(cleanedToken).expiresAt();
             long currentTime = System.currentTimeMillis();
             
             long ttl = tokenExpiration - currentTime;
 
             if (ttl > 0) {
-                redisTemplate.opsForValue().set("blacklist:" + cleanedToken, "true", ttl, TimeUnit.MILLISECONDS);
+                String digest = digest(cleanedToken);
+                tokenBlacklist.revoke(digest, ttl);
+                verifiedTokens.remove(digest);
                 System.out.println("DEBUG: Token added to blacklist for " + ttl + "ms");
             }
         } catch (Exception e) {
@@ -142,28 +175,59 @@ public class JwtUtil {
         }
     }
 
-    // Internal helper to check if the token key exists in Redis
-    private boolean isTokenBlacklisted(String token) {
+    // Internal helper to check if the token, by digest, was revoked (Redis is asked only on a local filter hit)
+    private boolean isTokenBlacklisted(String digest) {
         try {
-            Boolean exists = redisTemplate.hasKey("blacklist:" + token);
-            return exists != null && exists;
+            return tokenBlacklist.isRevoked(digest);
         } catch (Exception e) {
             System.out.println("DEBUG: Redis Connection Error: " + e.getMessage());
             return false; 
         }
     }
 
-    // Parses the JWT to extract all claims (payload)
-    private Claims getClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /*
+     Returns the claims of the token, verifying signature and expiry only if needed:
+     the token of the current request was already verified by the filter, and other
+     recently verified tokens are found by digest. Throws a JwtException if invalid.
+     The blacklist is not checked here (see validateToken).
+    */
+    private JwtPrincipal parseToken(String token) {
+        String cleanedToken = cleanToken(token);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof JwtPrincipal current
+                && cleanedToken.equals(authentication.getCredentials()) && !current.isExpired()) {
+            return current;
+        }
+
+        String digest = digest(cleanedToken);
+        JwtPrincipal cached = verifiedTokens.get(digest);
+        if (cached != null && !cached.isExpired()) {
+            return cached;
+        }
+
+        JwtPrincipal principal = verify(cleanedToken);
+        verifiedTokens.put(digest, principal);
+        return principal;
+    }
+
+    // Checks signature and expiry and reads the claims. Throws a JwtException if invalid.
+    private JwtPrincipal verify(String cleanedToken) {
+        Claims claims = parser.parseClaimsJws(cleanedToken).getBody();
+        return new JwtPrincipal(
+                claims.get("userId", String.class),
+                claims.getSubject(),
+                claims.get("username", String.class),
+                claims.getExpiration().getTime());
     }
 
-    // Decodes the secret key for signing and verifying
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+    // SHA-256 of the token, URL-safe Base64 (43 chars): identifies a token without storing it
+    static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
\ No newline at end of file
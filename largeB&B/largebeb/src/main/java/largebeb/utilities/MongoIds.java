@@ -0,0 +1,42 @@
+package largebeb.utilities;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/**
+ * Keyset conditions on _id for collections whose ids have mixed BSON types.
+ *
+ * Documents imported from the dataset have uuid strings, documents created by
+ * the application have ObjectIds (Spring reads and writes 24-hex ids as ObjectId).
+ * BSON sorts every string before every ObjectId and a range operator never
+ * matches across types, so a plain "_id > lastId" would stop at the type boundary.
+ */
+public final class MongoIds {
+
+    // BSON type numbers for $type
+    private static final int STRING = 2;
+    private static final int OBJECT_ID = 7;
+
+    private MongoIds() {
+    }
+
+    // Ids after lastId in ascending _id order: after a string id come the greater strings, then every ObjectId
+    public static Criteria after(String lastId) {
+        if (ObjectId.isValid(lastId)) {
+            return Criteria.where("_id").gt(new ObjectId(lastId));
+        }
+        return new Criteria().orOperator(
+                Criteria.where("_id").gt(lastId),
+                Criteria.where("_id").type(OBJECT_ID));
+    }
+
+    // Ids after lastId in descending _id order: after an ObjectId come the smaller ObjectIds, then every string
+    public static Criteria before(String lastId) {
+        if (!ObjectId.isValid(lastId)) {
+            return Criteria.where("_id").lt(lastId);
+        }
+        return new Criteria().orOperator(
+                Criteria.where("_id").lt(new ObjectId(lastId)),
+                Criteria.where("_id").type(STRING));
+    }
+}
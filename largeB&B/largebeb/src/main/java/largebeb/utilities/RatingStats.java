@@ -3,6 +3,11 @@ package largebeb.utilities;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
 
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
@@ -32,4 +37,34 @@ public class RatingStats {
     @Min(1)
     @Max(5)
     private Double value;         // Value (Value for money)
+
+    // Running sums over all reviews: averages are sum / totalReviews,
+    // so a review write only applies its delta ($inc) instead of reloading every review
+    private Double ratingSum;
+    private Double cleanlinessSum;
+    private Double communicationSum;
+    private Double locationSum;
+    private Double valueSum;
+
+    // Set once the sums have been computed from the reviews collection (RatingStatsMigration):
+    // until then an $inc may have created partial sums holding a single review
+    private Boolean sumsBackfilled;
+
+    // Pipeline update recomputing the stored averages of a property from its running sums
+    public static AggregationUpdate recomputeAverages() {
+        return AggregationUpdate.update()
+                .set("ratingStats.averageRating").toValue(average("ratingSum", 2))
+                .set("ratingStats.cleanliness").toValue(average("cleanlinessSum", 1))
+                .set("ratingStats.communication").toValue(average("communicationSum", 1))
+                .set("ratingStats.location").toValue(average("locationSum", 1))
+                .set("ratingStats.value").toValue(average("valueSum", 1));
+    }
+
+    private static AggregationExpression average(String sumField, int places) {
+        return ConditionalOperators.when(ComparisonOperators.valueOf("ratingStats.totalReviews").greaterThanValue(0))
+                .then(ArithmeticOperators.Round.roundValueOf(
+                        ArithmeticOperators.valueOf("ratingStats." + sumField).divideBy("ratingStats.totalReviews"))
+                        .place(places))
+                .otherwise(0.0);
+    }
 }
\ No newline at end of file
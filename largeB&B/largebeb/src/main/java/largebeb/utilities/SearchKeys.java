@@ -0,0 +1,81 @@
+package largebeb.utilities;
+
+import largebeb.model.Property;
+import largebeb.model.Room;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Normalized search keys stored next to the raw fields of properties and rooms.
+ *
+ * Raw values come from the dataset with mixed case and leftover quoting
+ * (e.g. "[\"Wifi\"" or "Rome "), which forced case-insensitive regex filters.
+ * The keys are lower-cased, accent-free and cleaned, so searches can use
+ * equality / $all on indexed fields instead.
+ */
+public final class SearchKeys {
+
+    private SearchKeys() {
+    }
+
+    // "  Roma " / "ROMA" -> "roma"
+    public static String city(String city) {
+        return normalize(city);
+    }
+
+    // "Lazio " -> "lazio"
+    public static String region(String region) {
+        return normalize(region);
+    }
+
+    // "Double" -> "double"
+    public static String roomType(String roomType) {
+        return normalize(roomType);
+    }
+
+    // "[\"Free Wifi\"" -> "free wifi"
+    public static String amenity(String amenity) {
+        if (amenity == null) return null;
+        return normalize(amenity.replaceAll("[\\[\\]{}\"'\\\\]", ""));
+    }
+
+    // Canonical tokens of an amenity list (no blanks, no duplicates)
+    public static List<String> amenities(List<String> amenities) {
+        List<String> keys = new ArrayList<>();
+        if (amenities == null) return keys;
+        for (String amenity : amenities) {
+            String key = amenity(amenity);
+            if (key != null && !keys.contains(key)) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    // Recomputes the keys of a property and of its rooms from the raw fields
+    public static void refresh(Property property) {
+        property.setCityKey(city(property.getCity()));
+        property.setAmenityKeys(amenities(property.getAmenities()));
+        if (property.getRooms() != null) {
+            property.getRooms().forEach(SearchKeys::refresh);
+        }
+    }
+
+    public static void refresh(Room room) {
+        room.setRoomTypeKey(roomType(room.getRoomType()));
+        room.setAmenityKeys(amenities(room.getAmenities()));
+    }
+
+    private static String normalize(String value) {
+        if (value == null) return null;
+        String key = Normalizer.normalize(value, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("\\s+", " ")
+                .trim();
+        return key.isEmpty() ? null : key;
+    }
+}
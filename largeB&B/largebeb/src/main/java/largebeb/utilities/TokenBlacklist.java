@@ -0,0 +1,179 @@
+package largebeb.utilities;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Revoked tokens, stored in Redis as "revoked:{digest}" (SHA-256 of the token)
+ * with the remaining lifetime of the token as TTL.
+ *
+ * Each node keeps a Bloom filter of the revoked digests, so a token that was
+ * never revoked (almost every request) is accepted without a Redis call; Redis
+ * is asked only on a filter hit, to rule out false positives. The filter is
+ * built from Redis at startup, kept current through the "token_revocations"
+ * channel and rebuilt periodically to drop the revocations that expired.
+ * Pub/sub is fire-and-forget: revocations published while this node was not
+ * subscribed (listener or Sentinel reconnect) are lost, so every (re)subscription
+ * to the channel also rebuilds the filter. Until a build completes, the first one
+ * or the one after a resubscription, every check goes to Redis.
+ */
+@Component
+@RequiredArgsConstructor
+public class TokenBlacklist {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenBlacklist.class);
+
+    private static final String KEY_PREFIX = "revoked:";
+    // Former layout: the whole token in the key, migrated by the first build
+    private static final String LEGACY_KEY_PREFIX = "blacklist:";
+    private static final String REVOCATION_CHANNEL = "token_revocations";
+
+    // About 120 KB per node
+    private static final int EXPECTED_REVOCATIONS = 100_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private volatile BloomFilter filter = newFilter();
+    // Filter being built: receives the revocations published while Redis is scanned
+    private volatile BloomFilter building;
+    private volatile boolean ready = false;
+    // Bumped on every (re)subscription: a build started before it may have missed revocations
+    private final AtomicLong subscriptions = new AtomicLong();
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(new RevocationListener(), new ChannelTopic(REVOCATION_CHANNEL));
+    }
+
+    // Revokes the token with the given digest for ttlMillis, on every node
+    public void revoke(String digest, long ttlMillis) {
+        redisTemplate.opsForValue().set(KEY_PREFIX + digest, "1", ttlMillis, TimeUnit.MILLISECONDS);
+        addLocal(digest);
+        redisTemplate.convertAndSend(REVOCATION_CHANNEL, digest);
+    }
+
+    // Redis is asked only if the filter may contain the digest (or is not built yet)
+    public boolean isRevoked(String digest) {
+        if (ready && !mightContain(filter, digest)) {
+            return false;
+        }
+        Boolean exists = redisTemplate.hasKey(KEY_PREFIX + digest);
+        return exists != null && exists;
+    }
+
+    /*
+     Builds a new filter from the revocations in Redis and swaps it in.
+     Revocations published during the scan go to both filters. Keys written
+     before the scan started are always returned by SCAN, so none is missed.
+    */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelay = 21600000, fixedDelay = 21600000)
+    public synchronized void rebuild() {
+        long subscription = subscriptions.get();
+        BloomFilter fresh = newFilter();
+        building = fresh;
+        try {
+            long revoked = 0;
+            try (Cursor<String> keys = redisTemplate.scan(ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build())) {
+                while (keys.hasNext()) {
+                    add(fresh, keys.next().substring(KEY_PREFIX.length()));
+                    revoked++;
+                }
+            }
+            revoked += migrateLegacyKeys(fresh);
+
+            filter = fresh;
+            // A resubscription during the scan queued another build: keep checking Redis until it is done
+            ready = subscription == subscriptions.get();
+            logger.info("Token blacklist filter built with {} revoked tokens.", revoked);
+        } catch (Exception e) {
+            logger.error("Token blacklist filter build failed, checking Redis on every request: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+
+    // HELPER METHODS
+
+    // Moves "blacklist:{token}" keys to "revoked:{digest}", keeping their TTL
+    private long migrateLegacyKeys(BloomFilter target) {
+        long migrated = 0;
+        try (Cursor<String> keys = redisTemplate.scan(ScanOptions.scanOptions().match(LEGACY_KEY_PREFIX + "*").count(1000).build())) {
+            while (keys.hasNext()) {
+                String key = keys.next();
+                Long ttl = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+                if (ttl != null && ttl > 0) {
+                    String digest = JwtUtil.digest(key.substring(LEGACY_KEY_PREFIX.length()));
+                    redisTemplate.opsForValue().set(KEY_PREFIX + digest, "1", ttl, TimeUnit.MILLISECONDS);
+                    add(target, digest);
+                    migrated++;
+                }
+                redisTemplate.delete(key);
+            }
+        }
+        return migrated;
+    }
+
+    // Revocations of the other nodes, and a rebuild on every (re)subscription to the channel
+    private final class RevocationListener implements MessageListener, SubscriptionListener {
+
+        @Override
+        public void onMessage(Message message, byte[] pattern) {
+            addLocal(new String(message.getBody(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void onChannelSubscribed(byte[] channel, long count) {
+            subscriptions.incrementAndGet();
+            ready = false;
+            // Off the subscription thread: the build scans Redis
+            CompletableFuture.runAsync(TokenBlacklist.this::rebuild);
+        }
+    }
+
+    private void addLocal(String digest) {
+        add(filter, digest);
+        BloomFilter next = building;
+        if (next != null) {
+            add(next, digest);
+        }
+    }
+
+    private static BloomFilter newFilter() {
+        return new BloomFilter(EXPECTED_REVOCATIONS, FALSE_POSITIVE_RATE);
+    }
+
+    // The digest is already uniformly distributed: its first 16 bytes are the two hashes
+    private static void add(BloomFilter target, String digest) {
+        ByteBuffer hash = ByteBuffer.wrap(Base64.getUrlDecoder().decode(digest));
+        target.add(hash.getLong(), hash.getLong());
+    }
+
+    private static boolean mightContain(BloomFilter target, String digest) {
+        ByteBuffer hash = ByteBuffer.wrap(Base64.getUrlDecoder().decode(digest));
+        return target.mightContain(hash.getLong(), hash.getLong());
+    }
+}
@@ -0,0 +1,139 @@
+package largebeb.config;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import largebeb.dto.PropertyResponseDTO;
+import largebeb.model.Review;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compact envelope vs the former JSON serializer on the cached values: the property
+ * details (one DTO with its latest reviews) and a list of 20 (the top rated list).
+ * Encoded sizes are printed at the end of each trial.
+ *
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main CompactRedisSerializerBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompactRedisSerializerBenchmark {
+
+    @Param({"details", "top20"})
+    public String value;
+
+    private RedisSerializer<Object> json;
+    private RedisSerializer<Object> compact;
+    private Object payload;
+    private byte[] jsonBytes;
+    private byte[] compactBytes;
+
+    @Setup
+    public void setUp() {
+        json = jsonSerializer();
+        compact = new CompactRedisSerializer(json, 1024);
+        if ("details".equals(value)) {
+            payload = property("p0", 10);
+        } else {
+            List<PropertyResponseDTO> properties = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                properties.add(property("p" + i, 10));
+            }
+            payload = properties;
+        }
+        jsonBytes = json.serialize(payload);
+        compactBytes = compact.serialize(payload);
+    }
+
+    @TearDown(Level.Trial)
+    public void printSizes() {
+        System.out.printf("%n%s: json %d bytes, compact %d bytes%n", value, jsonBytes.length, compactBytes.length);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() {
+        return json.serialize(payload);
+    }
+
+    @Benchmark
+    public byte[] serializeCompact() {
+        return compact.serialize(payload);
+    }
+
+    @Benchmark
+    public Object deserializeJson() {
+        return json.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public Object deserializeCompact() {
+        return compact.deserialize(compactBytes);
+    }
+
+    // HELPER METHODS
+
+    private static PropertyResponseDTO property(String id, int reviews) {
+        List<Review> latestReviews = new ArrayList<>();
+        for (int i = 0; i < reviews; i++) {
+            Review review = new Review();
+            review.setId(id + "-r" + i);
+            review.setPropertyId(id);
+            review.setUserId("user" + i);
+            review.setText("Lovely stay, the host was very helpful and the room was spotless. Would come back.");
+            review.setRating(5L);
+            review.setCleanliness(4.5);
+            review.setCommunication(5.0);
+            review.setLocation(4.0);
+            review.setValue(4.5);
+            review.setCreationDate(LocalDate.of(2024, 1, 1).plusDays(i));
+            latestReviews.add(review);
+        }
+        return PropertyResponseDTO.builder()
+                .id(id)
+                .name("Apartment " + id)
+                .description("Bright two-room apartment in the historic centre, a short walk from the station.")
+                .city("Pisa")
+                .region("Toscana")
+                .country("Italy")
+                .pricePerNight(85.0)
+                .rating(4.6)
+                .amenities(List.of("Wifi", "Kitchen", "Air conditioning", "Washer"))
+                .photos(List.of("https://img.example.com/" + id + "/1.jpg", "https://img.example.com/" + id + "/2.jpg"))
+                .coordinates(List.of(10.4017, 43.7228))
+                .latestReviews(latestReviews)
+                .build();
+    }
+
+    // Same mapper as RedisConfig's JSON serializer
+    private static RedisSerializer<Object> jsonSerializer() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        mapper.activateDefaultTyping(mapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL);
+        return new Jackson2JsonRedisSerializer<>(mapper, Object.class);
+    }
+}
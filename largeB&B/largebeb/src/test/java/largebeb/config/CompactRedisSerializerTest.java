@@ -0,0 +1,160 @@
+package largebeb.config;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import largebeb.dto.PropertyResponseDTO;
+import largebeb.dto.UserIdentityDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactRedisSerializerTest {
+
+    private static final int THRESHOLD = 1024;
+
+    private final RedisSerializer<Object> json = jsonSerializer();
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(json, THRESHOLD);
+
+    @Test
+    void roundTripsRegisteredTypes() {
+        assertThat(roundTrip("hello")).isEqualTo("hello");
+        assertThat(roundTrip(42L)).isEqualTo(42L);
+        assertThat(roundTrip(7)).isEqualTo(7);
+        assertThat(roundTrip(4.5)).isEqualTo(4.5);
+        assertThat(roundTrip(true)).isEqualTo(true);
+        assertThat(roundTrip(new UserIdentityDTO("u1", "CUSTOMER", "a@b.c")))
+                .isEqualTo(new UserIdentityDTO("u1", "CUSTOMER", "a@b.c"));
+        assertThat(roundTrip(property("p1", 3))).isEqualTo(property("p1", 3));
+    }
+
+    @Test
+    void roundTripsCollectionsWithTheirElementTypes() {
+        List<PropertyResponseDTO> properties = new ArrayList<>(List.of(property("p1", 1), property("p2", 2)));
+
+        assertThat(roundTrip(properties)).isEqualTo(properties);
+        assertThat(roundTrip(new HashMap<>(Map.of("count", 3L)))).isEqualTo(Map.of("count", 3L));
+    }
+
+    @Test
+    void writesNoSmileHeaderAfterTheEnvelope() {
+        byte[] bytes = serializer.serialize("x");
+
+        // magic, version, flags, type id (2), then the Smile value itself (not ":)\n")
+        assertThat(bytes).hasSize(5 + 2);
+        assertThat(bytes[5]).isNotEqualTo((byte) ':');
+    }
+
+    @Test
+    void compressesLargePayloadsAndReadsThemBack() {
+        List<PropertyResponseDTO> properties = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            properties.add(property("p" + i, 5));
+        }
+
+        byte[] bytes = serializer.serialize(properties);
+
+        assertThat(bytes[2] & 2).isEqualTo(2);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(properties);
+    }
+
+    @Test
+    void readsValuesWrittenInTheFormerJsonFormat() {
+        PropertyResponseDTO property = property("p1", 2);
+
+        assertThat(serializer.deserialize(json.serialize(property))).isEqualTo(property);
+        assertThat(serializer.deserialize(json.serialize("legacy"))).isEqualTo("legacy");
+    }
+
+    @Test
+    void readsEnvelopesWithASmileHeaderAndDeflatedPayloads() throws Exception {
+        UserIdentityDTO identity = new UserIdentityDTO("u1", "MANAGER", "m@b.c");
+        // Smile payload with its header, as the envelope carried before the header was dropped
+        byte[] payload = headerSmileMapper().writeValueAsBytes(identity);
+
+        assertThat(serializer.deserialize(envelope((byte) 0, (short) 8, payload))).isEqualTo(identity);
+        assertThat(serializer.deserialize(envelope((byte) 1, (short) 8, deflate(payload)))).isEqualTo(identity);
+    }
+
+    @Test
+    void emptyAndNullValues() {
+        assertThat(serializer.serialize(null)).isEmpty();
+        assertThat(serializer.deserialize(null)).isNull();
+        assertThat(serializer.deserialize(new byte[0])).isNull();
+    }
+
+    // HELPER METHODS
+
+    private Object roundTrip(Object value) {
+        return serializer.deserialize(serializer.serialize(value));
+    }
+
+    private static PropertyResponseDTO property(String id, int reviews) {
+        return PropertyResponseDTO.builder()
+                .id(id)
+                .name("Property " + id)
+                .description("A quiet place near the sea, ".repeat(reviews))
+                .city("Pisa")
+                .country("Italy")
+                .pricePerNight(80.0)
+                .rating(4.5)
+                .amenities(List.of("wifi", "kitchen"))
+                .photos(List.of("a.jpg", "b.jpg"))
+                .pois(Collections.emptyList())
+                .coordinates(List.of(10.4, 43.7))
+                .latestReviews(Collections.emptyList())
+                .build();
+    }
+
+    private static byte[] envelope(byte flags, short typeId, byte[] payload) {
+        return ByteBuffer.allocate(5 + payload.length)
+                .put((byte) 0xBE)
+                .put((byte) 1)
+                .put(flags)
+                .putShort(typeId)
+                .put(payload)
+                .array();
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    private static ObjectMapper headerSmileMapper() {
+        ObjectMapper mapper = new SmileMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        return mapper;
+    }
+
+    // Same mapper as RedisConfig's JSON serializer
+    private static RedisSerializer<Object> jsonSerializer() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        mapper.activateDefaultTyping(mapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL);
+        return new Jackson2JsonRedisSerializer<>(mapper, Object.class);
+    }
+}
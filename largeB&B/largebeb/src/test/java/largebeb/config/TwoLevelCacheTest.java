@@ -0,0 +1,161 @@
+package largebeb.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TwoLevelCacheTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private final ConcurrentMapCache l2 = new ConcurrentMapCache("test");
+
+    @Test
+    void concurrentMissesOnOneKeyRunASingleLoad() throws Exception {
+        TwoLevelCache cache = cache(HOUR, HOUR);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Future<String>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> cache.get("k", () -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    release.await();
+                    return "value";
+                })));
+            }
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            // Let the other callers reach the in-flight load before it completes
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(l2.get("k").get()).isEqualTo("value");
+    }
+
+    @Test
+    void failedLoadReachesEveryWaiterAndIsRetriedLater() {
+        TwoLevelCache cache = cache(HOUR, HOUR);
+
+        assertThatThrownBy(() -> cache.get("k", () -> {
+            throw new IllegalStateException("mongo down");
+        })).isInstanceOf(Cache.ValueRetrievalException.class).hasRootCauseMessage("mongo down");
+
+        assertThat(cache.get("k", () -> "value")).isEqualTo("value");
+    }
+
+    @Test
+    void hitsDoNotReloadFarFromTheL2Expiry() throws Exception {
+        TwoLevelCache cache = cache(HOUR, HOUR);
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 100; i++) {
+            cache.get("k", () -> "v" + loads.incrementAndGet());
+        }
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void hitsPastTheL2ExpiryAreRefreshedEarly() throws Exception {
+        // L2 TTL of 0: every hit after the load is past the expiry, so it refreshes
+        TwoLevelCache cache = cache(HOUR, 0);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get("k", () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat(cache.get("k", () -> "v" + loads.incrementAndGet())).isEqualTo("v2");
+        assertThat(l2.get("k").get()).isEqualTo("v2");
+    }
+
+    @Test
+    void failedEarlyRefreshServesTheCachedValue() {
+        TwoLevelCache cache = cache(HOUR, 0);
+        cache.get("k", () -> "cached");
+
+        String value = cache.get("k", () -> {
+            throw new IllegalStateException("mongo down");
+        });
+
+        assertThat(value).isEqualTo("cached");
+    }
+
+    @Test
+    void evictDropsBothTiers() {
+        TwoLevelCache cache = cache(HOUR, HOUR);
+        cache.put("k", "value");
+
+        cache.evict("k");
+
+        assertThat(cache.get("k")).isNull();
+        assertThat(l2.get("k")).isNull();
+    }
+
+    @Test
+    void l1KeepsAnL2HitNoLongerThanItsRemainingL2Ttl() {
+        // The entry expires from L2 right after it is read: L1 must not keep it
+        TwoLevelCache cache = cache(HOUR, HOUR, key -> 0);
+        l2.put("k", "old");
+        assertThat(cache.get("k").get()).isEqualTo("old");
+
+        l2.put("k", "new");
+
+        assertThat(cache.get("k").get()).isEqualTo("new");
+    }
+
+    @Test
+    void l1KeepsAnL2HitForItsOwnTtlWhenTheL2TtlIsLonger() {
+        TwoLevelCache cache = cache(HOUR, HOUR, key -> 2 * HOUR);
+        l2.put("k", "old");
+        assertThat(cache.get("k").get()).isEqualTo("old");
+
+        l2.put("k", "new");
+
+        assertThat(cache.get("k").get()).isEqualTo("old");
+    }
+
+    @Test
+    void l1KeepsALoadedValueNoLongerThanTheL2Ttl() {
+        TwoLevelCache cache = cache(HOUR, 0, key -> 2 * HOUR);
+        cache.get("k", () -> "old");
+
+        l2.put("k", "new");
+
+        // Known expiry of a key loaded by this node: L2 is not asked
+        assertThat(cache.get("k").get()).isEqualTo("new");
+    }
+
+    // HELPER METHODS
+
+    private TwoLevelCache cache(long l1TtlMillis, long l2TtlMillis) {
+        return cache(l1TtlMillis, l2TtlMillis, key -> -1);
+    }
+
+    private TwoLevelCache cache(long l1TtlMillis, long l2TtlMillis, ToLongFunction<String> l2RemainingTtl) {
+        return new TwoLevelCache("test", l2, 100, l1TtlMillis, l2TtlMillis, l2RemainingTtl, (cacheName, key) -> { });
+    }
+}
@@ -0,0 +1,87 @@
+package largebeb.services;
+
+import largebeb.model.Property;
+import largebeb.model.Reservation;
+import largebeb.model.Room;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory cost of the analytics pass over the reservations of one property
+ * (the MongoDB cursor feeding it in production is not part of the measure).
+ * Three years of check-ins over 20 rooms, a tenth of them cancelled.
+ *
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main ReservationAccumulatorBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationAccumulatorBenchmark {
+
+    private static final LocalDate FIRST_CHECK_IN = LocalDate.of(2022, 1, 1);
+    private static final int ROOMS = 20;
+
+    @Param({"10000", "100000"})
+    public int reservationCount;
+
+    private Property property;
+    private List<Reservation> reservations;
+
+    @Setup
+    public void setUp() {
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < ROOMS; i++) {
+            Room room = new Room();
+            room.setId("room" + i);
+            room.setRoomType(i % 2 == 0 ? "Double" : "Single");
+            rooms.add(room);
+        }
+        property = new Property();
+        property.setRooms(rooms);
+
+        SplittableRandom random = new SplittableRandom(42);
+        reservations = new ArrayList<>(reservationCount);
+        for (int i = 0; i < reservationCount; i++) {
+            LocalDate checkIn = FIRST_CHECK_IN.plusDays(random.nextInt(3 * 365));
+            int nights = 1 + random.nextInt(10);
+            reservations.add(Reservation.builder()
+                    .roomId("room" + random.nextInt(ROOMS))
+                    .status(random.nextInt(10) == 0 ? "CANCELLED" : "COMPLETED")
+                    .adults(1 + random.nextInt(3))
+                    .children(random.nextInt(2))
+                    .dates(new Reservation.ReservationDates(checkIn, checkIn.plusDays(nights)))
+                    .createdAt(checkIn.minusDays(random.nextInt(90)).atTime(12, 0))
+                    .totalPrice(80.0 * nights)
+                    .nights(nights)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public ReservationAccumulator accumulate() {
+        ReservationAccumulator acc = new ReservationAccumulator(property, FIRST_CHECK_IN, FIRST_CHECK_IN.plusYears(3));
+        for (Reservation res : reservations) {
+            acc.accept(res);
+        }
+        return acc;
+    }
+}
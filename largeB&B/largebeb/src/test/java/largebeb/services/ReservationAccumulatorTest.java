@@ -0,0 +1,146 @@
+package largebeb.services;
+
+import largebeb.model.Property;
+import largebeb.model.Reservation;
+import largebeb.model.Room;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ReservationAccumulatorTest {
+
+    private static final LocalDate PERIOD_START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate PERIOD_END = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void countsStatusesRevenueAndNightsOfTheActiveReservations() {
+        ReservationAccumulator acc = accumulator(PERIOD_START, PERIOD_END);
+
+        acc.accept(reservation("r1", "CONFIRMED", "2024-01-10", "2024-01-13", 300.0, 3));
+        acc.accept(reservation("r2", "completed", "2024-02-01", "2024-02-03", 180.0, 2));
+        acc.accept(reservation("r1", "CANCELLED", "2024-02-05", "2024-02-10", 500.0, 5));
+
+        assertThat(acc.getTotal()).isEqualTo(3);
+        assertThat(acc.getConfirmed()).isEqualTo(1);
+        assertThat(acc.getCompleted()).isEqualTo(1);
+        assertThat(acc.getCancelled()).isEqualTo(1);
+        assertThat(acc.getActive()).isEqualTo(2);
+        assertThat(acc.getRevenue()).isEqualTo(480.0);
+        assertThat(acc.getNights()).isEqualTo(5);
+        assertThat(acc.getAdults()).isEqualTo(4);
+        assertThat(acc.getChildren()).isEqualTo(2);
+        assertThat(acc.getAvgGuestsPerBooking()).isEqualTo(3.0);
+    }
+
+    @Test
+    void splitsFiguresPerRoom() {
+        ReservationAccumulator acc = accumulator(PERIOD_START, PERIOD_END);
+
+        acc.accept(reservation("r1", "CONFIRMED", "2024-01-10", "2024-01-13", 300.0, 3));
+        acc.accept(reservation("r1", "CONFIRMED", "2024-01-20", "2024-01-21", 100.0, 1));
+        acc.accept(reservation("r2", "CONFIRMED", "2024-02-01", "2024-02-03", 180.0, 2));
+
+        assertThat(acc.getRoomBookings(0)).isEqualTo(2);
+        assertThat(acc.getRoomNights(0)).isEqualTo(4);
+        assertThat(acc.getRoomRevenue(0)).isEqualTo(400.0);
+        assertThat(acc.getRoomBookings(1)).isEqualTo(1);
+        assertThat(acc.getMostBookedRoomType()).isEqualTo("Double");
+    }
+
+    @Test
+    void clipsOccupancyToThePeriod() {
+        ReservationAccumulator acc = accumulator(PERIOD_START, PERIOD_END);
+
+        // 3 of its 6 nights fall inside the period
+        acc.accept(reservation("r1", "CONFIRMED", "2023-12-29", "2024-01-04", 600.0, 6));
+
+        // 3 nights over 2 rooms x 60 days
+        assertThat(acc.getOccupancyRate()).isCloseTo(3 * 100.0 / 120, within(1e-9));
+        assertThat(accumulator(null, null).getOccupancyRate()).isZero();
+    }
+
+    @Test
+    void visitsMonthsInChronologicalOrderAcrossYearsAndGrowth() {
+        ReservationAccumulator acc = accumulator(null, null);
+
+        // Far apart and out of order: the month arrays grow in both directions
+        acc.accept(reservation("r1", "CONFIRMED", "2024-06-10", "2024-06-12", 200.0, 2));
+        acc.accept(reservation("r1", "CANCELLED", "2019-12-10", "2019-12-12", 200.0, 2));
+        acc.accept(reservation("r2", "CONFIRMED", "2029-01-10", "2029-01-11", 90.0, 1));
+        acc.accept(reservation("r2", "CONFIRMED", "2024-06-20", "2024-06-21", 90.0, 1));
+
+        List<String> visited = new ArrayList<>();
+        acc.forEachMonth((month, bookings, cancelled, active, revenue, guests) ->
+                visited.add(month + " " + bookings + "/" + cancelled + "/" + active + " " + revenue + " " + guests));
+
+        assertThat(visited).containsExactly(
+                "2019-12 1/1/0 0.0 0",
+                "2024-06 2/0/2 290.0 6",
+                "2029-01 1/0/1 90.0 3");
+    }
+
+    @Test
+    void computesLeadTimeStayAndDayOfWeekTrends() {
+        ReservationAccumulator acc = accumulator(null, null);
+
+        Reservation early = reservation("r1", "CONFIRMED", "2024-01-10", "2024-01-13", 300.0, 3);
+        early.setCreatedAt(LocalDate.of(2023, 12, 31).atTime(9, 0));
+        Reservation late = reservation("r2", "CONFIRMED", "2024-01-11", "2024-01-26", 900.0, 15);
+        late.setCreatedAt(LocalDate.of(2024, 1, 9).atTime(18, 0));
+        acc.accept(early);
+        acc.accept(late);
+
+        assertThat(acc.getAvgLeadTime()).isEqualTo(6.0);
+        assertThat(acc.getMinLeadTime()).isEqualTo(2.0);
+        assertThat(acc.getMaxLeadTime()).isEqualTo(10.0);
+        assertThat(acc.getAvgStay()).isEqualTo(9.0);
+        assertThat(acc.getStayBucket(1)).isEqualTo(1); // 3 nights
+        assertThat(acc.getStayBucket(4)).isEqualTo(1); // 15 nights
+        assertThat(acc.getDayOfWeekBookings(2)).isEqualTo(1); // Wednesday 10th
+        assertThat(acc.getDayOfWeekBookings(3)).isEqualTo(1); // Thursday 11th
+    }
+
+    @Test
+    void reservationsOfUnknownRoomsCountWithoutRevenue() {
+        ReservationAccumulator acc = accumulator(PERIOD_START, PERIOD_END);
+
+        acc.accept(reservation("gone", "CONFIRMED", "2024-01-10", "2024-01-13", 300.0, 3));
+
+        assertThat(acc.getActive()).isEqualTo(1);
+        assertThat(acc.getRevenue()).isZero();
+        assertThat(acc.getNights()).isZero();
+        assertThat(acc.getMostBookedRoomType()).isEqualTo("N/A");
+    }
+
+    // HELPER METHODS
+
+    private static ReservationAccumulator accumulator(LocalDate start, LocalDate end) {
+        Room double1 = new Room();
+        double1.setId("r1");
+        double1.setRoomType("Double");
+        Room single = new Room();
+        single.setId("r2");
+        single.setRoomType("Single");
+        Property property = new Property();
+        property.setRooms(List.of(double1, single));
+        return new ReservationAccumulator(property, start, end);
+    }
+
+    private static Reservation reservation(String roomId, String status, String checkIn, String checkOut,
+                                           double totalPrice, int nights) {
+        return Reservation.builder()
+                .roomId(roomId)
+                .status(status)
+                .adults(2)
+                .children(1)
+                .dates(new Reservation.ReservationDates(LocalDate.parse(checkIn), LocalDate.parse(checkOut)))
+                .totalPrice(totalPrice)
+                .nights(nights)
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package largebeb.services;
+
+import largebeb.services.RoomAvailabilityService.RoomCalendar;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomCalendarTest {
+
+    @Test
+    void checkOutDayIsFreeForTheNextCheckIn() {
+        RoomCalendar calendar = new RoomCalendar();
+        calendar.add("a", 10, 15);
+
+        assertThat(calendar.overlaps(15, 18, null)).isFalse();
+        assertThat(calendar.overlaps(5, 10, null)).isFalse();
+        assertThat(calendar.overlaps(14, 16, null)).isTrue();
+        assertThat(calendar.overlaps(5, 11, null)).isTrue();
+        assertThat(calendar.overlaps(11, 12, null)).isTrue();
+        assertThat(calendar.overlaps(0, 30, null)).isTrue();
+    }
+
+    @Test
+    void longStayStartingEarlyStillBlocksLaterDates() {
+        RoomCalendar calendar = new RoomCalendar();
+        calendar.add("long", 0, 100);
+        calendar.add("short1", 100, 101);
+        calendar.add("short2", 102, 103);
+
+        // The stays right before the request end early, the long one further back still covers it
+        assertThat(calendar.overlaps(50, 52, null)).isTrue();
+        assertThat(calendar.overlaps(101, 102, null)).isFalse();
+    }
+
+    @Test
+    void ignoredReservationDoesNotConflictWithItself() {
+        RoomCalendar calendar = new RoomCalendar();
+        calendar.add("a", 10, 15);
+
+        assertThat(calendar.overlaps(12, 17, "a")).isFalse();
+        assertThat(calendar.overlaps(12, 17, "b")).isTrue();
+    }
+
+    @Test
+    void removedAndEndedStaysFreeTheirDates() {
+        RoomCalendar calendar = new RoomCalendar();
+        calendar.add("a", 10, 15);
+        calendar.add("b", 20, 25);
+        calendar.add("c", 30, 35);
+
+        assertThat(calendar.remove("b")).isTrue();
+        assertThat(calendar.remove("b")).isFalse();
+        assertThat(calendar.overlaps(20, 25, null)).isFalse();
+
+        assertThat(calendar.removeEndedBy(15)).containsExactly("a");
+        assertThat(calendar.overlaps(10, 15, null)).isFalse();
+        assertThat(calendar.isEmpty()).isFalse();
+        assertThat(calendar.removeEndedBy(40)).containsExactly("c");
+        assertThat(calendar.isEmpty()).isTrue();
+    }
+
+    @Test
+    void agreesWithAPairwiseCheckOnRandomStays() {
+        SplittableRandom random = new SplittableRandom(7);
+        RoomCalendar calendar = new RoomCalendar();
+        List<long[]> stays = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            long checkIn = random.nextInt(1000);
+            long checkOut = checkIn + 1 + random.nextInt(random.nextInt(10) == 0 ? 60 : 5);
+            calendar.add("r" + i, checkIn, checkOut);
+            stays.add(new long[] {checkIn, checkOut});
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            long checkIn = random.nextInt(1100);
+            long checkOut = checkIn + 1 + random.nextInt(20);
+            boolean expected = stays.stream().anyMatch(s -> s[0] < checkOut && s[1] > checkIn);
+            assertThat(calendar.overlaps(checkIn, checkOut, null))
+                    .as("[%d, %d)", checkIn, checkOut)
+                    .isEqualTo(expected);
+        }
+    }
+}
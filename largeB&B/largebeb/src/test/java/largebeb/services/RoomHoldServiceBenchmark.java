@@ -0,0 +1,140 @@
+package largebeb.services;
+
+import largebeb.config.CompactRedisSerializer;
+import largebeb.model.Reservation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Placing a hold on a free room while other holds are pending elsewhere:
+ * the former KEYS temp_res:* scan (reading every pending hold) against the
+ * per-room index script. Each operation places then removes its hold.
+ *
+ * Needs a Redis on localhost:6379 (or -Dredis.test.host / -Dredis.test.port);
+ * use an empty instance, the scan reads every temp_res: key of the database.
+ *
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main RoomHoldServiceBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoomHoldServiceBenchmark {
+
+    private static final String HOLD_PREFIX = "temp_res:";
+    private static final LocalDate CHECK_IN = LocalDate.of(2030, 7, 10);
+    private static final int ROOMS = 500;
+
+    @Param({"100", "2000"})
+    public int pendingHolds;
+
+    private LettuceConnectionFactory connectionFactory;
+    private RedisTemplate<String, Object> redisTemplate;
+    private RoomHoldService service;
+    private final List<String> keys = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        RedisStandaloneConfiguration server = new RedisStandaloneConfiguration(
+                System.getProperty("redis.test.host", "localhost"),
+                Integer.getInteger("redis.test.port", 6379));
+        connectionFactory = new LettuceConnectionFactory(server,
+                LettuceClientConfiguration.builder().commandTimeout(Duration.ofSeconds(5)).build());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        try (var connection = connectionFactory.getConnection()) {
+            connection.ping();
+        } catch (Exception e) {
+            connectionFactory.destroy();
+            throw new IllegalStateException("RoomHoldServiceBenchmark needs a reachable Redis: " + server.getHostName()
+                    + ":" + server.getPort(), e);
+        }
+
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new CompactRedisSerializer(new JdkSerializationRedisSerializer(), 1024));
+        redisTemplate.afterPropertiesSet();
+        service = new RoomHoldService(redisTemplate);
+
+        for (int i = 0; i < pendingHolds; i++) {
+            Reservation pending = hold("bench-room-" + (i % ROOMS), CHECK_IN.plusDays(3L * (i / ROOMS)));
+            service.tryPlaceHold(pending);
+            keys.add(HOLD_PREFIX + pending.getId());
+            keys.add("room_holds:" + pending.getRoomId());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        redisTemplate.delete(keys);
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public boolean scanAllHolds() {
+        Reservation request = hold("bench-free-room", CHECK_IN);
+        Set<String> pendingKeys = redisTemplate.keys(HOLD_PREFIX + "*");
+        if (pendingKeys != null) {
+            for (String key : pendingKeys) {
+                Reservation pending = (Reservation) redisTemplate.opsForValue().get(key);
+                if (pending != null && pending.getRoomId().equals(request.getRoomId())
+                        && CHECK_IN.isBefore(pending.getDates().getCheckOut())
+                        && request.getDates().getCheckOut().isAfter(pending.getDates().getCheckIn())) {
+                    return false;
+                }
+            }
+        }
+        redisTemplate.opsForValue().set(HOLD_PREFIX + request.getId(), request, 15, TimeUnit.MINUTES);
+        redisTemplate.delete(HOLD_PREFIX + request.getId());
+        return true;
+    }
+
+    @Benchmark
+    public boolean roomIndex() {
+        Reservation request = hold("bench-free-room", CHECK_IN);
+        boolean placed = service.tryPlaceHold(request);
+        service.releaseHold(request.getId(), request.getRoomId(), request.getDates().getCheckOut());
+        return placed;
+    }
+
+    // HELPER METHODS
+
+    private static Reservation hold(String roomId, LocalDate checkIn) {
+        return Reservation.builder()
+                .id(UUID.randomUUID().toString())
+                .roomId(roomId)
+                .status("PENDING")
+                .adults(2)
+                .children(0)
+                .dates(new Reservation.ReservationDates(checkIn, checkIn.plusDays(2)))
+                .build();
+    }
+}
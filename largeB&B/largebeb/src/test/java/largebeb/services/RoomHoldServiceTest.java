@@ -0,0 +1,184 @@
+package largebeb.services;
+
+import largebeb.config.CompactRedisSerializer;
+import largebeb.model.Reservation;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs the hold scripts against a real Redis (localhost:6379, or -Dredis.test.host / -Dredis.test.port).
+ * Skipped when no Redis is reachable.
+ */
+class RoomHoldServiceTest {
+
+    private static final int CALLERS = 16;
+    private static final LocalDate CHECK_IN = LocalDate.of(2030, 7, 10);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static RedisTemplate<String, Object> redisTemplate;
+
+    private RoomHoldService service;
+    private String roomId;
+    private final List<String> holdIds = new ArrayList<>();
+
+    @BeforeAll
+    static void connect() {
+        RedisStandaloneConfiguration server = new RedisStandaloneConfiguration(
+                System.getProperty("redis.test.host", "localhost"),
+                Integer.getInteger("redis.test.port", 6379));
+        connectionFactory = new LettuceConnectionFactory(server,
+                LettuceClientConfiguration.builder().commandTimeout(Duration.ofSeconds(2)).build());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        boolean reachable;
+        try (var connection = connectionFactory.getConnection()) {
+            reachable = "PONG".equals(connection.ping());
+        } catch (Exception e) {
+            reachable = false;
+        }
+        if (!reachable) {
+            connectionFactory.destroy();
+            connectionFactory = null;
+        }
+        assumeTrue(reachable, "No Redis reachable, hold contention tests skipped");
+
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new CompactRedisSerializer(new JdkSerializationRedisSerializer(), 1024));
+        redisTemplate.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        service = new RoomHoldService(redisTemplate);
+        roomId = "test-room-" + UUID.randomUUID();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        List<String> keys = new ArrayList<>();
+        keys.add("room_holds:" + roomId);
+        holdIds.forEach(id -> keys.add("temp_res:" + id));
+        redisTemplate.delete(keys);
+    }
+
+    @Test
+    void concurrentHoldsOnTheSameDatesPlaceExactlyOne() throws Exception {
+        List<Boolean> placed = placeConcurrently(i -> CHECK_IN.plusDays(i % 3), i -> CHECK_IN.plusDays(5));
+
+        assertThat(placed).containsOnlyOnce(true);
+        assertThat(redisTemplate.opsForZSet().size("room_holds:" + roomId)).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentHoldsOnDisjointDatesAreAllPlaced() throws Exception {
+        // Back-to-back stays: each check-out is the next check-in
+        List<Boolean> placed = placeConcurrently(i -> CHECK_IN.plusDays(2L * i), i -> CHECK_IN.plusDays(2L * i + 2));
+
+        assertThat(placed).hasSize(CALLERS).containsOnly(true);
+    }
+
+    @Test
+    void releasedHoldFreesTheDates() {
+        Reservation first = hold(CHECK_IN, CHECK_IN.plusDays(3));
+        assertThat(service.tryPlaceHold(first)).isTrue();
+        assertThat(service.getHold(first.getId()).getRoomId()).isEqualTo(roomId);
+        assertThat(service.tryPlaceHold(hold(CHECK_IN.plusDays(1), CHECK_IN.plusDays(2)))).isFalse();
+
+        service.releaseHold(first.getId(), roomId, first.getDates().getCheckOut());
+
+        assertThat(service.getHold(first.getId())).isNull();
+        assertThat(service.tryPlaceHold(hold(CHECK_IN.plusDays(1), CHECK_IN.plusDays(2)))).isTrue();
+    }
+
+    @Test
+    void expiredHoldDoesNotBlockAndLeavesTheIndex() {
+        Reservation stale = hold(CHECK_IN, CHECK_IN.plusDays(3));
+        assertThat(service.tryPlaceHold(stale)).isTrue();
+        // Hold key gone (as after its TTL) while its index entry is still there
+        redisTemplate.delete("temp_res:" + stale.getId());
+
+        assertThat(service.tryPlaceHold(hold(CHECK_IN, CHECK_IN.plusDays(3)))).isTrue();
+        assertThat(redisTemplate.opsForZSet().size("room_holds:" + roomId)).isEqualTo(1);
+    }
+
+    // HELPER METHODS
+
+    private interface DayOf {
+        LocalDate day(int caller);
+    }
+
+    // All callers start together; result i tells whether caller i got its hold
+    private List<Boolean> placeConcurrently(DayOf checkIn, DayOf checkOut) throws Exception {
+        List<Reservation> holds = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            holds.add(hold(checkIn.day(i), checkOut.day(i)));
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (Reservation hold : holds) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return service.tryPlaceHold(hold);
+                }));
+            }
+            start.countDown();
+
+            List<Boolean> placed = new ArrayList<>();
+            for (Future<Boolean> future : futures) {
+                placed.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return placed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Reservation hold(LocalDate checkIn, LocalDate checkOut) {
+        String id = UUID.randomUUID().toString();
+        holdIds.add(id);
+        return Reservation.builder()
+                .id(id)
+                .roomId(roomId)
+                .status("PENDING")
+                .adults(2)
+                .children(0)
+                .dates(new Reservation.ReservationDates(checkIn, checkOut))
+                .build();
+    }
+}
@@ -0,0 +1,85 @@
+package largebeb.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    private static final int ENTRIES = 10_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Test
+    void containsEveryAddedValue() {
+        BloomFilter filter = new BloomFilter(ENTRIES, FALSE_POSITIVE_RATE);
+        SplittableRandom random = new SplittableRandom(1);
+        long[][] hashes = new long[ENTRIES][];
+        for (int i = 0; i < ENTRIES; i++) {
+            hashes[i] = new long[] {random.nextLong(), random.nextLong()};
+            filter.add(hashes[i][0], hashes[i][1]);
+        }
+
+        for (long[] hash : hashes) {
+            assertThat(filter.mightContain(hash[0], hash[1])).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheConfiguredOne() {
+        BloomFilter filter = new BloomFilter(ENTRIES, FALSE_POSITIVE_RATE);
+        SplittableRandom random = new SplittableRandom(2);
+        for (int i = 0; i < ENTRIES; i++) {
+            filter.add(random.nextLong(), random.nextLong());
+        }
+
+        int probes = 100_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(random.nextLong(), random.nextLong())) {
+                falsePositives++;
+            }
+        }
+
+        assertThat((double) falsePositives / probes).isLessThan(FALSE_POSITIVE_RATE * 2);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(ENTRIES, FALSE_POSITIVE_RATE);
+
+        assertThat(filter.mightContain(0L, 0L)).isFalse();
+        assertThat(filter.mightContain(-1L, Long.MIN_VALUE)).isFalse();
+    }
+
+    @Test
+    void concurrentAddsAreNotLost() throws InterruptedException {
+        BloomFilter filter = new BloomFilter(ENTRIES, FALSE_POSITIVE_RATE);
+        int threads = 8;
+        int perThread = ENTRIES / threads;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            executor.execute(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                for (int i = 0; i < perThread; i++) {
+                    filter.add(random.nextLong(), random.nextLong());
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            for (int i = 0; i < perThread; i++) {
+                assertThat(filter.mightContain(random.nextLong(), random.nextLong())).isTrue();
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package largebeb.utilities;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading the claims of a request's token.
+ *
+ * parseWithNewKey is the former JwtUtil: every call built the HMAC key and the parser,
+ * then verified the token, and a request called it several times (filter, then services).
+ * authenticate is the filter's single verification; readInRequest is a service reading
+ * the same token afterwards, served from the request's principal.
+ * The blacklist answers from its local filter (no Redis), as for a token never revoked.
+ *
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main JwtUtilBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-with-at-least-256-bits-0123456789";
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expirationTime", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(jwtUtil, "tokenBlacklist", new TokenBlacklist(null, null) {
+            @Override
+            public boolean isRevoked(String digest) {
+                return false;
+            }
+        });
+        jwtUtil.init();
+        token = jwtUtil.generateToken("65a1f0c2e4b0a1b2c3d4e5f6", "guest@example.com", "guest");
+    }
+
+    @Setup(Level.Iteration)
+    public void authenticateRequest() {
+        JwtPrincipal principal = jwtUtil.authenticate(token);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, token, List.of()));
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearRequest() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public String parseWithNewKey() {
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+        return claims.get("userId", String.class);
+    }
+
+    @Benchmark
+    public JwtPrincipal authenticate() {
+        return jwtUtil.authenticate(token);
+    }
+
+    @Benchmark
+    public String readInRequest() {
+        return jwtUtil.getUserIdFromToken(token);
+    }
+}
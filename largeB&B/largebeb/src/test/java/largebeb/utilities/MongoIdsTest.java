@@ -0,0 +1,49 @@
+package largebeb.utilities;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoIdsTest {
+
+    private static final String UUID_ID = "3f2c8a9e-1b4d-4c6e-9f0a-7d5e2b1c8a90";
+    private static final String OBJECT_ID = "65a1f0c2e4b0a1b2c3d4e5f6";
+
+    @Test
+    void afterAStringIdComesTheGreaterStringsThenEveryObjectId() {
+        Document condition = MongoIds.after(UUID_ID).getCriteriaObject();
+
+        List<Object> branches = condition.getList("$or", Object.class);
+        assertThat(branches).containsExactly(
+                new Document("_id", new Document("$gt", UUID_ID)),
+                new Document("_id", new Document("$type", 7)));
+    }
+
+    @Test
+    void afterAnObjectIdComesTheGreaterObjectIds() {
+        Document condition = MongoIds.after(OBJECT_ID).getCriteriaObject();
+
+        assertThat(condition).isEqualTo(new Document("_id", new Document("$gt", new ObjectId(OBJECT_ID))));
+    }
+
+    @Test
+    void beforeAnObjectIdComesTheSmallerObjectIdsThenEveryString() {
+        Document condition = MongoIds.before(OBJECT_ID).getCriteriaObject();
+
+        List<Object> branches = condition.getList("$or", Object.class);
+        assertThat(branches).containsExactly(
+                new Document("_id", new Document("$lt", new ObjectId(OBJECT_ID))),
+                new Document("_id", new Document("$type", 2)));
+    }
+
+    @Test
+    void beforeAStringIdComesTheSmallerStrings() {
+        Document condition = MongoIds.before(UUID_ID).getCriteriaObject();
+
+        assertThat(condition).isEqualTo(new Document("_id", new Document("$lt", UUID_ID)));
+    }
+}
@@ -0,0 +1,61 @@
+package largebeb.utilities;
+
+import largebeb.model.Property;
+import largebeb.model.Room;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchKeysTest {
+
+    @Test
+    void cityKeysAreLowerCasedTrimmedAndAccentFree() {
+        assertThat(SearchKeys.city("  Roma ")).isEqualTo("roma");
+        assertThat(SearchKeys.city("ROMA")).isEqualTo("roma");
+        assertThat(SearchKeys.city("Forlì")).isEqualTo("forli");
+        assertThat(SearchKeys.city("San   Gimignano")).isEqualTo("san gimignano");
+    }
+
+    @Test
+    void blankValuesHaveNoKey() {
+        assertThat(SearchKeys.city(null)).isNull();
+        assertThat(SearchKeys.city("   ")).isNull();
+        assertThat(SearchKeys.amenity("[\"\"")).isNull();
+    }
+
+    @Test
+    void amenityKeysDropLeftoverQuoting() {
+        assertThat(SearchKeys.amenity("[\"Free Wifi\"")).isEqualTo("free wifi");
+        assertThat(SearchKeys.amenity("'Kitchen']")).isEqualTo("kitchen");
+        assertThat(SearchKeys.amenity("{\\\"Pool\\\"}")).isEqualTo("pool");
+    }
+
+    @Test
+    void amenityListsHaveNoBlanksOrDuplicates() {
+        List<String> keys = SearchKeys.amenities(Arrays.asList("[\"Wifi\"", "wifi ", null, "\"\"", "Parking\"]"));
+
+        assertThat(keys).containsExactly("wifi", "parking");
+        assertThat(SearchKeys.amenities(null)).isEmpty();
+    }
+
+    @Test
+    void refreshSetsThePropertyAndRoomKeys() {
+        Room room = new Room();
+        room.setRoomType("Double ");
+        room.setAmenities(List.of("[\"TV\""));
+        Property property = new Property();
+        property.setCity("Firenze ");
+        property.setAmenities(List.of("Garden", "GARDEN"));
+        property.setRooms(List.of(room));
+
+        SearchKeys.refresh(property);
+
+        assertThat(property.getCityKey()).isEqualTo("firenze");
+        assertThat(property.getAmenityKeys()).containsExactly("garden");
+        assertThat(room.getRoomTypeKey()).isEqualTo("double");
+        assertThat(room.getAmenityKeys()).containsExactly("tv");
+    }
+}